@@ -0,0 +1,41 @@
+package masteringthreads.jmh;
+
+import masteringthreads.util.TaskPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+// chains of tasks where every task submits the next one from inside the pool
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContinuationBenchmark {
+    private static final int CHAIN_LENGTH = 1000;
+
+    @Benchmark
+    @OperationsPerInvocation(CHAIN_LENGTH)
+    public void chain(PoolState state) throws InterruptedException {
+        var done = new CountDownLatch(1);
+        state.taskPool.submit(new Link(state.taskPool, CHAIN_LENGTH, done));
+        done.await();
+    }
+
+    private static final class Link implements Runnable {
+        private final TaskPool pool;
+        private final int remaining;
+        private final CountDownLatch done;
+
+        private Link(TaskPool pool, int remaining, CountDownLatch done) {
+            this.pool = pool;
+            this.remaining = remaining;
+            this.done = done;
+        }
+
+        public void run() {
+            if (remaining == 1) done.countDown();
+            else pool.submit(new Link(pool, remaining - 1, done));
+        }
+    }
+}
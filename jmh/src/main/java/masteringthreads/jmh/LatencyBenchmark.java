@@ -0,0 +1,20 @@
+package masteringthreads.jmh;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+// time from submit() until a worker starts running the task, on an idle pool
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatencyBenchmark {
+    @Benchmark
+    public void submitToRun(PoolState state) throws InterruptedException {
+        var started = new CountDownLatch(1);
+        state.taskPool.submit(started::countDown);
+        started.await();
+    }
+}
@@ -0,0 +1,43 @@
+package masteringthreads.jmh;
+
+import masteringthreads.util.TaskPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+
+// the pool under test, shared by all the benchmarks so that there is only
+// one list of pools to keep up to date; narrow it down with -p pool=...
+@State(Scope.Benchmark)
+public class PoolState {
+    @Param({"solution_2_1", "solution_2_1b", "solution_3_1", "solution_4_1",
+        "solution_4_2", "solution_6_1", "solution_6_2", "solution_6_3",
+        "solution_6_4", "solution_6_5", "solution_6_6", "solution_6_7",
+        "solution_6_8", "solution_6_9", "solution_6_10", "solution_6_11",
+        "solution_6_12", "solution_6_13", "solution_6_14", "solution_6_15",
+        "solution_6_16", "solution_6_17", "solution_6_18", "solution_6_19",
+        "solution_6_20", "solution_6_21", "solution_6_22", "solution_6_23",
+        "solution_6_24"})
+    private String pool;
+
+    @Param({"1", "4", "16"})
+    private int poolSize;
+
+    TaskPool taskPool;
+
+    @Setup
+    public void setUp() throws NoSuchFieldException {
+        // annotation values have to be constants, so at least fail loudly
+        // when a pool is added to Pools but not here, or the other way round
+        var listed = Set.of(PoolState.class.getDeclaredField("pool")
+            .getAnnotation(Param.class).value());
+        if (!listed.equals(Pools.names()))
+            throw new IllegalStateException("@Param list " + new TreeSet<>(listed)
+                + " does not match Pools " + new TreeSet<>(Pools.names()));
+        taskPool = Pools.create(pool, poolSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        taskPool.shutdown();
+    }
+}
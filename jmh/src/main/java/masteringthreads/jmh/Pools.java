@@ -0,0 +1,54 @@
+package masteringthreads.jmh;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.function.*;
+
+// every TaskPool we can benchmark, by the name of its package
+final class Pools {
+    private static final Map<String, IntFunction<TaskPool>> POOLS = Map.ofEntries(
+        Map.entry("solution_2_1", masteringthreads.ch2_basics_of_threads.solution_2_1.ThreadPool::new),
+        Map.entry("solution_2_1b", masteringthreads.ch2_basics_of_threads.solution_2_1b.ThreadPool::new),
+        Map.entry("solution_3_1", masteringthreads.ch3_the_secrets_of_concurrency.solution_3_1.ThreadPool::new),
+        Map.entry("solution_4_1", masteringthreads.ch4_applied_threading_techniques.solution_4_1.ThreadPool::new),
+        Map.entry("solution_4_2", masteringthreads.ch4_applied_threading_techniques.solution_4_2.ThreadPool::new),
+        Map.entry("solution_6_1", masteringthreads.ch6_high_performance_thread_pools.solution_6_1.ThreadPool::new),
+        Map.entry("solution_6_2", masteringthreads.ch6_high_performance_thread_pools.solution_6_2.ThreadPool::new),
+        Map.entry("solution_6_3", masteringthreads.ch6_high_performance_thread_pools.solution_6_3.ThreadPool::new),
+        Map.entry("solution_6_4", masteringthreads.ch6_high_performance_thread_pools.solution_6_4.ThreadPool::new),
+        Map.entry("solution_6_5", masteringthreads.ch6_high_performance_thread_pools.solution_6_5.ThreadPool::new),
+        Map.entry("solution_6_6", masteringthreads.ch6_high_performance_thread_pools.solution_6_6.ThreadPool::new),
+        Map.entry("solution_6_7", masteringthreads.ch6_high_performance_thread_pools.solution_6_7.ThreadPool::new),
+        Map.entry("solution_6_8", masteringthreads.ch6_high_performance_thread_pools.solution_6_8.ThreadPool::new),
+        Map.entry("solution_6_9", masteringthreads.ch6_high_performance_thread_pools.solution_6_9.ThreadPool::new),
+        Map.entry("solution_6_10", masteringthreads.ch6_high_performance_thread_pools.solution_6_10.ThreadPool::new),
+        Map.entry("solution_6_11", masteringthreads.ch6_high_performance_thread_pools.solution_6_11.ThreadPool::new),
+        Map.entry("solution_6_12", masteringthreads.ch6_high_performance_thread_pools.solution_6_12.ThreadPool::new),
+        Map.entry("solution_6_13", masteringthreads.ch6_high_performance_thread_pools.solution_6_13.ThreadPool::new),
+        Map.entry("solution_6_14", masteringthreads.ch6_high_performance_thread_pools.solution_6_14.ThreadPool::new),
+        Map.entry("solution_6_15", masteringthreads.ch6_high_performance_thread_pools.solution_6_15.ThreadPool::new),
+        Map.entry("solution_6_16", masteringthreads.ch6_high_performance_thread_pools.solution_6_16.ThreadPool::new),
+        Map.entry("solution_6_17", masteringthreads.ch6_high_performance_thread_pools.solution_6_17.ThreadPool::new),
+        Map.entry("solution_6_18", masteringthreads.ch6_high_performance_thread_pools.solution_6_18.ThreadPool::new),
+        Map.entry("solution_6_19", masteringthreads.ch6_high_performance_thread_pools.solution_6_19.ThreadPool::new),
+        Map.entry("solution_6_20", masteringthreads.ch6_high_performance_thread_pools.solution_6_20.ThreadPool::new),
+        Map.entry("solution_6_21", masteringthreads.ch6_high_performance_thread_pools.solution_6_21.ThreadPool::new),
+        Map.entry("solution_6_22", masteringthreads.ch6_high_performance_thread_pools.solution_6_22.ThreadPool::new),
+        Map.entry("solution_6_23", masteringthreads.ch6_high_performance_thread_pools.solution_6_23.ThreadPool::new),
+        Map.entry("solution_6_24", masteringthreads.ch6_high_performance_thread_pools.solution_6_24.ThreadPool::new)
+    );
+
+    private Pools() {}
+
+    static Set<String> names() {
+        return POOLS.keySet();
+    }
+
+    static TaskPool create(String name, int poolSize) {
+        var factory = POOLS.get(name);
+        if (factory == null)
+            throw new IllegalArgumentException("Unknown pool " + name + ", expected one of " + new TreeSet<>(POOLS.keySet()));
+        return factory.apply(poolSize);
+    }
+}
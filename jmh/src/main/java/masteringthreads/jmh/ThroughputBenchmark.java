@@ -0,0 +1,35 @@
+package masteringthreads.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.util.concurrent.*;
+
+// how many tasks per second each pool gets through when it is kept busy
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThroughputBenchmark {
+    private static final int BATCH = 1000;
+
+    // Blackhole.consumeCPU() tokens burnt by every task
+    @Param({"0", "1000"})
+    private long work;
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void submitAndRun(PoolState state) throws InterruptedException {
+        var done = new CountDownLatch(BATCH);
+        Runnable task = () -> {
+            Blackhole.consumeCPU(work);
+            done.countDown();
+        };
+        for (int i = 0; i < BATCH; i++) {
+            state.taskPool.submit(task);
+        }
+        done.await();
+    }
+}
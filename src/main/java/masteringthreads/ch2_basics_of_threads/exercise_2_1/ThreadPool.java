@@ -1,6 +1,8 @@
 package masteringthreads.ch2_basics_of_threads.exercise_2_1;
 
-public class ThreadPool {
+import masteringthreads.util.*;
+
+public class ThreadPool implements TaskPool {
     // Create a LinkedList field containing Runnable. This is our "tasks" queue.
     // Hint: Since LinkedList is not thread-safe, we need to synchronize it.
     // Create an ArrayList containing all the Worker threads.
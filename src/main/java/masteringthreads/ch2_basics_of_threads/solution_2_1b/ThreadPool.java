@@ -1,10 +1,12 @@
 package masteringthreads.ch2_basics_of_threads.solution_2_1b;
 
+import masteringthreads.util.*;
+
 import java.util.*;
 import java.util.concurrent.locks.*;
 
 // solution_2_1 #1 - not perfect yet ...
-public class ThreadPool {
+public class ThreadPool implements TaskPool {
     // Create a LinkedList field containing Runnable. This is our "tasks" queue.
     private final Lock tasksLock = new ReentrantLock();
     private final Condition tasksNotEmpty = tasksLock.newCondition();
@@ -13,6 +15,9 @@ public class ThreadPool {
     // Create an ArrayList containing all the Worker threads.
     // @GuardedBy("workers")
     private final Collection<Worker> workers = new ArrayList<>();
+    // Thread.stop() throws UnsupportedOperationException since Java 20, so
+    // shutdown() interrupts the workers and they stop themselves
+    private volatile boolean stopped;
 
     public ThreadPool(int poolSize) {
         for (int i = 0; i < poolSize; i++) {
@@ -59,11 +64,11 @@ public class ThreadPool {
         }
     }
 
-    @SuppressWarnings("deprecation")
     public void shutdown() {
-        // this should call stop() on the worker threads.
+        // tell the workers to stop, and wake up the ones blocked in take()
+        stopped = true;
         synchronized (workers) {
-            workers.forEach(Thread::stop);
+            workers.forEach(Thread::interrupt);
         }
     }
 
@@ -74,13 +79,13 @@ public class ThreadPool {
 
         public void run() {
             // we run in an infinite loop:
-            while (true) {
+            while (!stopped) {
                 // remove the next task from the linked list using take()
                 // we then call the run() method on the job
                 try {
                     take().run();
                 } catch (InterruptedException e) {
-                    e.printStackTrace();
+                    if (!stopped) e.printStackTrace();
                 }
             }
         }
@@ -1,8 +1,10 @@
 package masteringthreads.ch3_the_secrets_of_concurrency.exercise_3_1;
 
+import masteringthreads.util.*;
+
 import java.util.*;
 
-public class ThreadPool {
+public class ThreadPool implements TaskPool {
     // Create a LinkedList field containing Runnable. This is our "tasks" queue.
     // @GuardedBy("tasks")
     private final Queue<Runnable> tasks = new LinkedList<>();
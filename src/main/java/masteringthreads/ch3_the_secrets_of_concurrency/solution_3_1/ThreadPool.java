@@ -1,9 +1,11 @@
 package masteringthreads.ch3_the_secrets_of_concurrency.solution_3_1;
 
+import masteringthreads.util.*;
+
 import java.util.*;
 
 // solution_2_1 #2 - getting better ...
-public class ThreadPool {
+public class ThreadPool implements TaskPool {
     // @GuardedBy("tasks")
     private final Queue<Runnable> tasks = new LinkedList<>();
     // @GuardedBy("workers")
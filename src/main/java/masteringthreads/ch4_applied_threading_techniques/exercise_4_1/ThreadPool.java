@@ -1,11 +1,13 @@
 package masteringthreads.ch4_applied_threading_techniques.exercise_4_1;
 
+import masteringthreads.util.*;
+
 import java.util.*;
 import java.util.concurrent.locks.*;
 
 // TODO: Replace LinkedList with LinkedBlockingQueue and ArrayList with
 // TODO: ConcurrentLinkedQueue
-public class ThreadPool {
+public class ThreadPool implements TaskPool {
     // @GuardedBy("tasks")
     private final Queue<Runnable> tasks = new LinkedList<>();
     // @GuardedBy("workers")
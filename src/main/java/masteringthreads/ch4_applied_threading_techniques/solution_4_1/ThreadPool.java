@@ -1,10 +1,12 @@
 package masteringthreads.ch4_applied_threading_techniques.solution_4_1;
 
+import masteringthreads.util.*;
+
 import java.util.*;
 import java.util.concurrent.*;
 
 // solution #3 - even better ...
-public class ThreadPool {
+public class ThreadPool implements TaskPool {
     private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
     private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
     private volatile boolean running = true;
@@ -1,9 +1,11 @@
 package masteringthreads.ch4_applied_threading_techniques.solution_4_2;
 
+import masteringthreads.util.*;
+
 import java.util.concurrent.*;
 
 // solution #4 - the best ...
-public class ThreadPool {
+public class ThreadPool implements TaskPool {
     private final ExecutorService pool;
 
     public ThreadPool(int poolSize) {
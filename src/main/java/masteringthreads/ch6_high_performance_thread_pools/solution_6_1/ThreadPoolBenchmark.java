@@ -0,0 +1,45 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_1;
+
+import masteringthreads.util.*;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+
+// compares the work-stealing pool against the single shared queue of solution_4_1
+public class ThreadPoolBenchmark {
+    private static final int POOL_SIZE = 32;
+    private static final int PRODUCERS = 4;
+    private static final int TASKS = 1_000_000;
+
+    public static void main(String... args) throws InterruptedException {
+        for (int run = 0; run < 5; run++) {
+            var shared = new masteringthreads.ch4_applied_threading_techniques.solution_4_1.ThreadPool(POOL_SIZE);
+            test("solution_4_1", shared::submit);
+            shared.shutdown();
+
+            var stealing = new ThreadPool(POOL_SIZE);
+            test("solution_6_1", stealing::submit);
+            stealing.shutdown();
+        }
+    }
+
+    private static void test(String description, Consumer<Runnable> submitter) throws InterruptedException {
+        var latch = new CountDownLatch(TASKS);
+        Runnable task = latch::countDown;
+        var bm = new Benchmark();
+        bm.start();
+        var producers = new Thread[PRODUCERS];
+        for (int i = 0; i < producers.length; i++) {
+            producers[i] = new Thread(() -> {
+                for (int j = 0; j < TASKS / PRODUCERS; j++) {
+                    submitter.accept(task);
+                }
+            });
+            producers[i].start();
+        }
+        for (var producer : producers) producer.join();
+        latch.await();
+        bm.stop();
+        System.out.println(description + ": " + bm);
+    }
+}
@@ -0,0 +1,152 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_1;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testIdleWorkersStealFromBusyWorkers() throws InterruptedException {
+        var pool = new ThreadPool(4);
+        var blocker = new CountDownLatch(1);
+        var blocked = new AtomicReference<Thread>();
+        var started = new CountDownLatch(1);
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+        var latch = new CountDownLatch(100);
+        // one of the workers gets stuck, so its share of the tasks must be
+        // stolen; which one depends on who gets to the blocker first
+        pool.submit(() -> {
+            blocked.set(Thread.currentThread());
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            pool.submit(() -> {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+            });
+        }
+        boolean noTimeout = latch.await(1, TimeUnit.SECONDS);
+        blocker.countDown();
+        pool.shutdown();
+        assertTrue("tasks behind the blocked worker were not stolen", noTimeout);
+        assertFalse(threads.contains(blocked.get()));
+    }
+
+    @Test
+    public void testNoTasksAreLostWhenWorkersPark() throws InterruptedException {
+        var pool = new ThreadPool(8);
+        var count = new LongAdder();
+        for (int round = 0; round < 1000; round++) {
+            var latch = new CountDownLatch(3);
+            for (int i = 0; i < 3; i++) {
+                pool.submit(() -> {
+                    count.increment();
+                    latch.countDown();
+                });
+            }
+            assertTrue("lost wakeup in round " + round,
+                latch.await(1, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        assertEquals(3000, count.sum());
+    }
+
+    @Test
+    public void testNoTasksAreLostWhileTheOwnerIsBusy() throws InterruptedException {
+        // the owner takes tasks while we keep adding to its deque, which
+        // used to let it park with work left behind
+        var pool = new ThreadPool(1);
+        for (int round = 0; round < 2000; round++) {
+            var latch = new CountDownLatch(1000);
+            for (int i = 0; i < 1000; i++) {
+                pool.submit(latch::countDown);
+            }
+            assertTrue("lost wakeup in round " + round,
+                latch.await(1, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
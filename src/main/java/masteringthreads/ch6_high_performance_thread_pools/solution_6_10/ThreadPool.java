@@ -0,0 +1,71 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_10;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// solution #14 - pluggable strategy for how idle workers wait
+public class ThreadPool implements TaskPool {
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the whole queue
+    private final AtomicInteger queued = new AtomicInteger();
+    private final WaitStrategy waitStrategy;
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        this(poolSize, WaitStrategy.blocking());
+    }
+
+    public ThreadPool(int poolSize, WaitStrategy waitStrategy) {
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "waitStrategy");
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    private Runnable take() throws InterruptedException {
+        var task = waitStrategy.take(tasks);
+        queued.decrementAndGet();
+        return task;
+    }
+
+    public void submit(Runnable job) {
+        Objects.requireNonNull(job, "job");
+        queued.incrementAndGet();
+        tasks.add(job);
+        waitStrategy.signal();
+    }
+
+    public int getRunQueueLength() {
+        return queued.get();
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // wait for the next task using the wait strategy
+                // we then call the run() method on the job
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_10;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+// p50/p99 time from submit() until an idle worker starts running the task
+public class ThreadPoolBenchmark {
+    private static final int SAMPLES = 20_000;
+    private static final long PAUSE_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    public static void main(String... args) throws InterruptedException {
+        var strategies = new LinkedHashMap<String, Supplier<WaitStrategy>>();
+        strategies.put("busySpin", WaitStrategy::busySpin);
+        strategies.put("spinThenYield(10000)", () -> WaitStrategy.spinThenYield(10_000));
+        strategies.put("spinThenPark(10000)", () -> WaitStrategy.spinThenPark(10_000));
+        strategies.put("blocking", WaitStrategy::blocking);
+        for (int run = 0; run < 3; run++) {
+            for (var entry : strategies.entrySet()) {
+                test(entry.getKey(), new ThreadPool(1, entry.getValue().get()));
+            }
+            System.out.println();
+        }
+    }
+
+    private static void test(String description, ThreadPool pool) throws InterruptedException {
+        var latencies = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            var done = new CountDownLatch(1);
+            int sample = i;
+            long submitted = System.nanoTime();
+            pool.submit(() -> {
+                latencies[sample] = System.nanoTime() - submitted;
+                done.countDown();
+            });
+            done.await();
+            // give the worker time to go back to waiting
+            LockSupport.parkNanos(PAUSE_NANOS);
+        }
+        pool.shutdown();
+        Arrays.sort(latencies);
+        System.out.printf("%-22s p50=%6dns p99=%8dns%n", description,
+            latencies[SAMPLES / 2], latencies[SAMPLES * 99 / 100]);
+    }
+}
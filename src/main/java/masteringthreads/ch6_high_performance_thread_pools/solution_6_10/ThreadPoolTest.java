@@ -0,0 +1,121 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_10;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    private static final List<Supplier<WaitStrategy>> STRATEGIES = List.of(
+        WaitStrategy::busySpin,
+        () -> WaitStrategy.spinThenYield(1000),
+        () -> WaitStrategy.spinThenPark(1000),
+        WaitStrategy::blocking
+    );
+
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        for (var strategy : STRATEGIES) {
+            var pool = new ThreadPool(1, strategy.get());
+            var latch = new CountDownLatch(1);
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                } finally {
+                    latch.countDown();
+                }
+            });
+            Thread.sleep(200);
+            pool.shutdown();
+            boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+            assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+        }
+    }
+
+    @Test
+    public void testIdleWorkersStopOnShutdown() throws InterruptedException {
+        for (var strategy : STRATEGIES) {
+            var threads = new ArrayList<Thread>();
+            var pool = new ThreadPool(2, strategy.get());
+            var latch = new CountDownLatch(2);
+            for (int i = 0; i < 2; i++) {
+                pool.submit(() -> {
+                    threads.add(Thread.currentThread());
+                    latch.countDown();
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            pool.shutdown();
+            for (var thread : threads) {
+                thread.join(1000);
+                assertFalse("idle worker still waiting", thread.isAlive());
+            }
+        }
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        // the spinning strategies would only fight over the cores here
+        checkStandardThreadPoolFunctionality(new ThreadPool(10, WaitStrategy.spinThenPark(100)));
+        checkStandardThreadPoolFunctionality(new ThreadPool(10, WaitStrategy.blocking()));
+    }
+
+    @Test
+    public void testNoTasksAreLost() throws InterruptedException {
+        for (var strategy : STRATEGIES) {
+            var pool = new ThreadPool(2, strategy.get());
+            var count = new LongAdder();
+            for (int round = 0; round < 1000; round++) {
+                var latch = new CountDownLatch(2);
+                for (int i = 0; i < 2; i++) {
+                    pool.submit(() -> {
+                        count.increment();
+                        latch.countDown();
+                    });
+                }
+                assertTrue("lost wakeup in round " + round,
+                    latch.await(1, TimeUnit.SECONDS));
+            }
+            pool.shutdown();
+            assertEquals(2000, count.sum());
+            assertEquals(0, pool.getRunQueueLength());
+        }
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+}
@@ -0,0 +1,135 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_10;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Decides how an idle worker waits for the next task. The strategies
+ * trade CPU for wake-up latency: a busy-spinning worker notices a new task
+ * within nanoseconds but burns a whole core, whereas a blocked worker
+ * costs nothing while idle, but needs a park/unpark round trip of tens of
+ * microseconds before it runs the next task.
+ * <p>
+ * Each pool needs its own instance, since some strategies keep track of
+ * their waiting workers.
+ */
+public interface WaitStrategy {
+    /**
+     * Removes the next task, waiting for one if the queue is empty.
+     *
+     * @throws InterruptedException if the worker is interrupted while
+     *                              waiting, e.g. during shutdown
+     */
+    Runnable take(Queue<Runnable> tasks) throws InterruptedException;
+
+    /**
+     * Called after every task that is added to the queue.
+     */
+    void signal();
+
+    /**
+     * Polls in a tight loop with Thread.onSpinWait(). Lowest latency, but
+     * every idle worker keeps a core busy, so only use it with fewer
+     * workers than cores.
+     */
+    static WaitStrategy busySpin() {
+        return new WaitStrategy() {
+            public Runnable take(Queue<Runnable> tasks) throws InterruptedException {
+                Runnable task;
+                while ((task = tasks.poll()) == null) {
+                    if (Thread.interrupted()) throw new InterruptedException();
+                    Thread.onSpinWait();
+                }
+                return task;
+            }
+
+            public void signal() {
+            }
+        };
+    }
+
+    /**
+     * Spins for a while and then calls Thread.yield() between polls, which
+     * lets other threads use the core but still keeps it from idling.
+     */
+    static WaitStrategy spinThenYield(int spins) {
+        return new WaitStrategy() {
+            public Runnable take(Queue<Runnable> tasks) throws InterruptedException {
+                Runnable task;
+                int counter = spins;
+                while ((task = tasks.poll()) == null) {
+                    if (Thread.interrupted()) throw new InterruptedException();
+                    if (counter > 0) {
+                        counter--;
+                        Thread.onSpinWait();
+                    } else {
+                        Thread.yield();
+                    }
+                }
+                return task;
+            }
+
+            public void signal() {
+            }
+        };
+    }
+
+    /**
+     * Spins for a while to catch tasks that arrive shortly after each
+     * other, and only then blocks.
+     */
+    static WaitStrategy spinThenPark(int spins) {
+        return new Blocking() {
+            public Runnable take(Queue<Runnable> tasks) throws InterruptedException {
+                for (int i = 0; i < spins; i++) {
+                    var task = tasks.poll();
+                    if (task != null) return task;
+                    Thread.onSpinWait();
+                }
+                return super.take(tasks);
+            }
+        };
+    }
+
+    /**
+     * Blocks straight away on a Condition. Submitters only take the lock
+     * when there is actually a worker waiting.
+     */
+    static WaitStrategy blocking() {
+        return new Blocking();
+    }
+
+    class Blocking implements WaitStrategy {
+        private final Lock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        private Blocking() {
+        }
+
+        public Runnable take(Queue<Runnable> tasks) throws InterruptedException {
+            var task = tasks.poll();
+            if (task != null) return task;
+            lock.lockInterruptibly();
+            waiters.incrementAndGet();
+            try {
+                while ((task = tasks.poll()) == null) notEmpty.await();
+                return task;
+            } finally {
+                waiters.decrementAndGet();
+                lock.unlock();
+            }
+        }
+
+        public void signal() {
+            if (waiters.get() == 0) return;
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
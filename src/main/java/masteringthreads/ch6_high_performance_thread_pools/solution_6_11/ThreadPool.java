@@ -0,0 +1,158 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_11;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// solution #15 - jobs with the same key run in order, different keys in parallel
+public class ThreadPool implements TaskPool {
+    // how many jobs of one key we run before giving other keys a turn
+    private static final int KEY_BATCH = 16;
+
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    private final Stripe[] stripes;
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        int count = Integer.highestOneBit(Math.max(1, poolSize * 4 - 1)) << 1;
+        stripes = new Stripe[count];
+        Arrays.setAll(stripes, i -> new Stripe());
+    }
+
+    private Runnable take() throws InterruptedException {
+        return tasks.take();
+    }
+
+    public void submit(Runnable job) {
+        tasks.add(job);
+    }
+
+    /**
+     * Runs the job after all earlier jobs with an equal key have finished.
+     * Jobs with different keys may run in parallel on any worker. The
+     * bookkeeping for a key is removed as soon as it has no more jobs, so
+     * an unbounded number of keys does not leak memory.
+     */
+    public void submit(Object key, Runnable job) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(job, "job");
+        var stripe = stripeFor(key);
+        KeyQueue newQueue = null;
+        synchronized (stripe) {
+            var queue = stripe.queues.get(key);
+            if (queue != null) {
+                queue.jobs.add(job);
+            } else {
+                newQueue = new KeyQueue(key, stripe, job);
+                stripe.queues.put(key, newQueue);
+            }
+        }
+        // only an idle key needs to be put into the pool's queue
+        if (newQueue != null) submit(newQueue);
+    }
+
+    private Stripe stripeFor(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    /**
+     * The number of keys that still have jobs queued or running.
+     */
+    public int getActiveKeyCount() {
+        int count = 0;
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.queues.size();
+            }
+        }
+        return count;
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private static final class Stripe {
+        // @GuardedBy("this")
+        private final Map<Object, KeyQueue> queues = new HashMap<>();
+    }
+
+    // Sits in the pool's queue whenever its key has jobs waiting. At most
+    // one worker runs it at a time, which gives us the ordering per key.
+    private final class KeyQueue implements Runnable {
+        private final Object key;
+        private final Stripe stripe;
+        // @GuardedBy("stripe")
+        private final Queue<Runnable> jobs = new ArrayDeque<>();
+
+        private KeyQueue(Object key, Stripe stripe, Runnable first) {
+            this.key = key;
+            this.stripe = stripe;
+            jobs.add(first);
+        }
+
+        public void run() {
+            boolean more = true;
+            try {
+                for (int i = 0; i < KEY_BATCH && more; i++) {
+                    Runnable job;
+                    synchronized (stripe) {
+                        job = jobs.peek();
+                    }
+                    try {
+                        job.run();
+                    } finally {
+                        more = next();
+                    }
+                }
+            } finally {
+                // even if a job failed, the rest of the key must still run
+                if (more) submit(this);
+            }
+        }
+
+        // removes the job that just ran; returns false and forgets the key
+        // if there are no more jobs
+        private boolean next() {
+            synchronized (stripe) {
+                jobs.remove();
+                if (!jobs.isEmpty()) return true;
+                stripe.queues.remove(key);
+                return false;
+            }
+        }
+    }
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next task from the queue using take()
+                // we then call the run() method on the job
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+    }
+}
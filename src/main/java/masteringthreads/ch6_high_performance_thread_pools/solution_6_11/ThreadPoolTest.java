@@ -0,0 +1,121 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_11;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit("key", () -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testDifferentKeysRunConcurrently() throws InterruptedException {
+        var pool = new ThreadPool(10);
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(i, () -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    @Test
+    public void testSameKeyRunsSerially() throws InterruptedException {
+        var pool = new ThreadPool(4);
+        var running = new AtomicInteger();
+        var overlap = new AtomicBoolean();
+        var latch = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            pool.submit("account-42", () -> {
+                if (running.incrementAndGet() > 1) overlap.set(true);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertFalse("jobs of the same key overlapped", overlap.get());
+    }
+
+    @Test
+    public void testFifoPerKeyAndIdleKeysAreReclaimed() throws InterruptedException {
+        var pool = new ThreadPool(8);
+        int keys = 1000, jobsPerKey = 100;
+        var seen = new int[keys];
+        var outOfOrder = new AtomicInteger();
+        var latch = new CountDownLatch(keys * jobsPerKey);
+        var producers = new Thread[4];
+        for (int p = 0; p < producers.length; p++) {
+            int producer = p;
+            producers[p] = new Thread(() -> {
+                // each producer owns a quarter of the keys, so that the
+                // submission order per key is well defined
+                for (int j = 0; j < jobsPerKey; j++) {
+                    for (int k = producer; k < keys; k += producers.length) {
+                        int key = k, expected = j;
+                        pool.submit(key, () -> {
+                            if (seen[key]++ != expected) outOfOrder.incrementAndGet();
+                            latch.countDown();
+                        });
+                    }
+                }
+            });
+            producers[p].start();
+        }
+        for (var producer : producers) producer.join();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(0, outOfOrder.get());
+        assertEquals("idle keys should be removed", 0, pool.getActiveKeyCount());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testFailingJobDoesNotBlockItsKey() throws InterruptedException {
+        var pool = new ThreadPool(2);
+        var latch = new CountDownLatch(1);
+        pool.submit("key", () -> {
+            throw new IllegalStateException("expected in test");
+        });
+        pool.submit("key", latch::countDown);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+}
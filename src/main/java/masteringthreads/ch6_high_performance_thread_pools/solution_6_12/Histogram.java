@@ -0,0 +1,64 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_12;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Log-linear histogram of durations in nanoseconds, with four buckets per
+ * power of two. It must only be written by one thread, so that recording
+ * is a plain increment without any CAS; other threads may read it at any
+ * time.
+ */
+class Histogram {
+    private static final int SUB_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long nanos) {
+        int index = indexOf(Math.max(0, nanos));
+        // single writer, so we do not need getAndIncrement()
+        counts.lazySet(index, counts.get(index) + 1);
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // the largest value that would land in the bucket
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        long lower = (1L << exponent) + (sub << (exponent - SUB_BITS));
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    /**
+     * Combines the histograms and returns the value at the given
+     * percentile, e.g. 99.0, or 0 if nothing has been recorded yet.
+     */
+    static long percentile(Collection<Histogram> histograms, double percentile) {
+        var merged = new long[BUCKETS];
+        long total = 0;
+        for (var histogram : histograms) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = histogram.counts.get(i);
+                merged[i] += count;
+                total += count;
+            }
+        }
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += merged[i];
+            if (seen >= rank) return upperBoundOf(i);
+        }
+        return upperBoundOf(BUCKETS - 1);
+    }
+}
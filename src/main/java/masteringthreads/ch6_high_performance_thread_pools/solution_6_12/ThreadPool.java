@@ -0,0 +1,204 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_12;
+
+import masteringthreads.util.*;
+
+import javax.management.*;
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// solution #16 - metrics per pool and per worker, published through JMX
+public class ThreadPool implements TaskPool {
+    private static final AtomicInteger poolNumber = new AtomicInteger();
+
+    private final BlockingQueue<Task> tasks = new LinkedBlockingQueue<>();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    // written by every submitter, so we use striped accumulators
+    private final LongAdder submitted = new LongAdder();
+    private final LongAccumulator highWaterMark = new LongAccumulator(Math::max, 0);
+    private final ObjectName objectName;
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        try {
+            objectName = new ObjectName("masteringthreads:type=ThreadPool,name=pool-"
+                + poolNumber.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(), objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register ThreadPoolMXBean", e);
+        }
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    private Task take() throws InterruptedException {
+        return tasks.take();
+    }
+
+    public void submit(Runnable job) {
+        submitted.increment();
+        tasks.add(new Task(job, System.nanoTime()));
+        // LinkedBlockingQueue keeps its size in an AtomicInteger, so this is cheap
+        int size = tasks.size();
+        if (size > highWaterMark.get()) highWaterMark.accumulate(size);
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            // already unregistered
+        }
+    }
+
+    private record Task(Runnable job, long submitted) {
+    }
+
+    private class Worker extends Thread {
+        // only written by this worker, so no contention between workers
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final Histogram queueWait = new Histogram();
+        private final Histogram execution = new Histogram();
+        private volatile long activeSince;
+        private volatile boolean active;
+
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next task from the queue using take()
+                // we then call the run() method on the job
+                Task task;
+                try {
+                    task = take();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+                runTask(task);
+            }
+        }
+
+        private void runTask(Task task) {
+            long start = System.nanoTime();
+            queueWait.record(start - task.submitted());
+            activeSince = start;
+            active = true;
+            try {
+                task.job().run();
+                completed.lazySet(completed.get() + 1);
+            } catch (Throwable e) {
+                // also a checked exception that was thrown sneakily
+                failed.lazySet(failed.get() + 1);
+                throw e;
+            } finally {
+                active = false;
+                long time = System.nanoTime() - start;
+                busyNanos.lazySet(busyNanos.get() + time);
+                execution.record(time);
+            }
+        }
+
+        private WorkerMetrics metrics() {
+            // busyNanos before active, so that a task finishing in between
+            // is missed in this snapshot rather than counted twice
+            long busy = busyNanos.get();
+            boolean isActive = active;
+            if (isActive) busy += System.nanoTime() - activeSince;
+            return new WorkerMetrics(getName(), getState(), isActive,
+                completed.get(), failed.get(), TimeUnit.NANOSECONDS.toMicros(busy));
+        }
+    }
+
+    private class Metrics extends StandardMBean implements ThreadPoolMXBean {
+        private Metrics() {
+            super(ThreadPoolMXBean.class, true);
+        }
+
+        public long getSubmittedCount() {
+            return submitted.sum();
+        }
+
+        public long getCompletedCount() {
+            return workers.stream().mapToLong(w -> w.completed.get()).sum();
+        }
+
+        public long getFailedCount() {
+            return workers.stream().mapToLong(w -> w.failed.get()).sum();
+        }
+
+        public int getPoolSize() {
+            return (int) workers.stream().filter(Thread::isAlive).count();
+        }
+
+        public int getActiveWorkers() {
+            return (int) workers.stream().filter(w -> w.active).count();
+        }
+
+        public int getQueueLength() {
+            return tasks.size();
+        }
+
+        public int getQueueLengthHighWaterMark() {
+            return (int) highWaterMark.get();
+        }
+
+        public long getQueueWaitMicrosP50() {
+            return micros(queueWaits(), 50);
+        }
+
+        public long getQueueWaitMicrosP99() {
+            return micros(queueWaits(), 99);
+        }
+
+        public long getQueueWaitMicrosMax() {
+            return micros(queueWaits(), 100);
+        }
+
+        public long getExecutionMicrosP50() {
+            return micros(executions(), 50);
+        }
+
+        public long getExecutionMicrosP99() {
+            return micros(executions(), 99);
+        }
+
+        public long getExecutionMicrosMax() {
+            return micros(executions(), 100);
+        }
+
+        public List<WorkerMetrics> getWorkers() {
+            return workers.stream().map(Worker::metrics).toList();
+        }
+
+        private List<Histogram> queueWaits() {
+            return workers.stream().map(w -> w.queueWait).toList();
+        }
+
+        private List<Histogram> executions() {
+            return workers.stream().map(w -> w.execution).toList();
+        }
+
+        private long micros(List<Histogram> histograms, double percentile) {
+            return TimeUnit.NANOSECONDS.toMicros(Histogram.percentile(histograms, percentile));
+        }
+    }
+}
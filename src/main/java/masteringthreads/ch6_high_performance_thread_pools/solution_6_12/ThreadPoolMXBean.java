@@ -0,0 +1,38 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_12;
+
+import java.util.*;
+
+/**
+ * Management interface that every ThreadPool registers under
+ * masteringthreads:type=ThreadPool,name=pool-N. Times are in
+ * microseconds, and the percentiles are accurate to within 25%.
+ */
+public interface ThreadPoolMXBean {
+    long getSubmittedCount();
+
+    long getCompletedCount();
+
+    long getFailedCount();
+
+    int getPoolSize();
+
+    int getActiveWorkers();
+
+    int getQueueLength();
+
+    int getQueueLengthHighWaterMark();
+
+    long getQueueWaitMicrosP50();
+
+    long getQueueWaitMicrosP99();
+
+    long getQueueWaitMicrosMax();
+
+    long getExecutionMicrosP50();
+
+    long getExecutionMicrosP99();
+
+    long getExecutionMicrosMax();
+
+    List<WorkerMetrics> getWorkers();
+}
@@ -0,0 +1,166 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_12;
+
+import org.junit.*;
+
+import javax.management.*;
+import java.lang.management.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testMetricsArePublishedThroughJmx() throws Exception {
+        var pool = new ThreadPool(2);
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var metrics = JMX.newMXBeanProxy(server, pool.getObjectName(), ThreadPoolMXBean.class);
+        assertEquals(2, metrics.getPoolSize());
+
+        var blocker = new CountDownLatch(1);
+        var started = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            pool.submit(() -> {
+                started.countDown();
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        var done = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        pool.submit(() -> {
+            throw new IllegalStateException("expected in test");
+        });
+        assertEquals(2, metrics.getActiveWorkers());
+        assertEquals(11, metrics.getQueueLength());
+        Thread.sleep(100);
+        blocker.countDown();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        assertEquals(13, metrics.getSubmittedCount());
+        assertEquals(12, metrics.getCompletedCount());
+        assertEquals(1, metrics.getFailedCount());
+        assertEquals(0, metrics.getActiveWorkers());
+        assertEquals(11, metrics.getQueueLengthHighWaterMark());
+        // 10 of the 12 tasks waited for at least 100ms behind the blockers
+        assertTrue(metrics.getQueueWaitMicrosP50() >= 100_000);
+        assertTrue(metrics.getQueueWaitMicrosMax() >= metrics.getQueueWaitMicrosP99());
+        // most tasks slept for 20ms, which must be within the 25% error
+        long p50 = metrics.getExecutionMicrosP50();
+        assertTrue("p50=" + p50, p50 >= 20_000 && p50 < 30_000);
+        assertTrue(metrics.getExecutionMicrosP99() >= 100_000);
+
+        pool.shutdown();
+        assertFalse(server.isRegistered(pool.getObjectName()));
+    }
+
+    @Test
+    public void testMetricsPerWorker() throws Exception {
+        var pool = new ThreadPool(2);
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var metrics = JMX.newMXBeanProxy(server, pool.getObjectName(), ThreadPoolMXBean.class);
+        var blocker = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+        pool.submit(() -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        var done = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) pool.submit(done::countDown);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        var workers = metrics.getWorkers();
+        assertEquals(2, workers.size());
+        var busy = workers.stream().filter(WorkerMetrics::isActive).findFirst().orElseThrow();
+        var idle = workers.stream().filter(w -> !w.isActive()).findFirst().orElseThrow();
+        assertEquals(Thread.State.WAITING, busy.getState());
+        assertEquals(Thread.State.WAITING, idle.getState());
+        assertEquals(0, busy.getCompletedCount());
+        assertEquals(5, idle.getCompletedCount());
+        // the blocked task counts as busy time while it is still running
+        assertTrue(busy.getBusyMicros() >= 100_000);
+        assertTrue(idle.getBusyMicros() < busy.getBusyMicros());
+
+        blocker.countDown();
+        Thread.sleep(100);
+        var after = metrics.getWorkers().stream()
+            .filter(w -> w.getName().equals(busy.getName())).findFirst().orElseThrow();
+        assertFalse(after.isActive());
+        assertEquals(1, after.getCompletedCount());
+        assertTrue(after.getBusyMicros() >= busy.getBusyMicros());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSneakyCheckedExceptionsAreCountedAsFailures() throws Exception {
+        var pool = new ThreadPool(1);
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var metrics = JMX.newMXBeanProxy(server, pool.getObjectName(), ThreadPoolMXBean.class);
+        var worker = new CompletableFuture<Thread>();
+        pool.submit(() -> {
+            // keep the console clean, we expect this worker to die
+            Thread.currentThread().setUncaughtExceptionHandler((t, e) -> {});
+            worker.complete(Thread.currentThread());
+            ThreadPoolTest.<RuntimeException>sneakyThrow(new Exception("expected in test"));
+        });
+        var thread = worker.get(1, TimeUnit.SECONDS);
+        // the uncaught exception handler runs before the thread terminates
+        thread.join(1000);
+        assertFalse(thread.isAlive());
+        assertEquals(1, metrics.getFailedCount());
+        assertEquals(Thread.State.TERMINATED, metrics.getWorkers().get(0).getState());
+        pool.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> void sneakyThrow(Throwable e) throws E {
+        throw (E) e;
+    }
+
+    @Test
+    public void testEachPoolHasItsOwnMBean() {
+        var pool1 = new ThreadPool(1);
+        var pool2 = new ThreadPool(1);
+        assertNotEquals(pool1.getObjectName(), pool2.getObjectName());
+        pool1.shutdown();
+        pool2.shutdown();
+    }
+}
@@ -0,0 +1,59 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_12;
+
+import javax.management.*;
+
+/**
+ * Snapshot of a single worker, as returned by ThreadPoolMXBean.getWorkers().
+ * JConsole shows these as a table with one row per worker, which makes it
+ * easy to spot a worker that is stuck or doing far more than its share.
+ */
+public class WorkerMetrics {
+    private final String name;
+    private final Thread.State state;
+    private final boolean active;
+    private final long completedCount;
+    private final long failedCount;
+    private final long busyMicros;
+
+    @ConstructorParameters({"name", "state", "active", "completedCount", "failedCount", "busyMicros"})
+    public WorkerMetrics(String name, Thread.State state, boolean active,
+                         long completedCount, long failedCount, long busyMicros) {
+        this.name = name;
+        this.state = state;
+        this.active = active;
+        this.completedCount = completedCount;
+        this.failedCount = failedCount;
+        this.busyMicros = busyMicros;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Thread.State getState() {
+        return state;
+    }
+
+    /**
+     * Whether the worker is running a task, even if that task is currently
+     * blocked, as opposed to waiting for the next one.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Total time spent running tasks, including the one in progress.
+     */
+    public long getBusyMicros() {
+        return busyMicros;
+    }
+}
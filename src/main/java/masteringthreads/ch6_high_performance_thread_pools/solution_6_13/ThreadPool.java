@@ -0,0 +1,159 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_13;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+// solution #17 - hand tasks straight to parked workers, queue only when busy
+public class ThreadPool implements TaskPool {
+    // only tells a parked worker to go and look at the queue again
+    private static final Runnable WAKE_UP = () -> {};
+    // the worker stopped waiting before anybody handed it something
+    private static final Runnable CANCELLED = () -> {};
+
+    // only used when all the workers are busy
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    // Treiber stack of parked workers; the most recently parked is on top,
+    // since its caches are still warm and the others can carry on sleeping
+    private final AtomicReference<Node> idle = new AtomicReference<>();
+    private final LongAdder handoffs = new LongAdder();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    public void submit(Runnable job) {
+        Objects.requireNonNull(job, "job");
+        dispatch(job);
+    }
+
+    private void dispatch(Runnable job) {
+        if (handOff(job)) {
+            handoffs.increment();
+            return;
+        }
+        tasks.add(job);
+        // a worker might have pushed itself after we looked at the stack and
+        // checked the queue before our add, so we need to look once more
+        handOff(WAKE_UP);
+    }
+
+    private boolean handOff(Runnable item) {
+        Node node;
+        while ((node = pop()) != null) {
+            if (node.item.compareAndSet(null, item)) {
+                LockSupport.unpark(node.worker);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void push(Node node) {
+        Node top;
+        do {
+            top = idle.get();
+            node.next = top;
+        } while (!idle.compareAndSet(top, node));
+    }
+
+    private Node pop() {
+        Node top;
+        do {
+            top = idle.get();
+            if (top == null) return null;
+        } while (!idle.compareAndSet(top, top.next));
+        return top;
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    /**
+     * The number of tasks that were given directly to a parked worker,
+     * without ever touching the queue.
+     */
+    public long getHandoffCount() {
+        return handoffs.sum();
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private static final class Node {
+        private final Worker worker;
+        // null while the worker waits, then the job, WAKE_UP or CANCELLED
+        private final AtomicReference<Runnable> item = new AtomicReference<>();
+        private Node next;
+
+        private Node(Worker worker) {
+            this.worker = worker;
+        }
+    }
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // take a task from the queue, or wait for one to be handed
+                // to us, and then call its run() method
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+
+        private Runnable take() throws InterruptedException {
+            while (true) {
+                if (Thread.interrupted()) throw new InterruptedException();
+                var task = tasks.poll();
+                if (task != null) return task;
+                // nodes are never reused, so a stale one left behind on the
+                // stack is simply skipped by the next submit()
+                var node = new Node(this);
+                push(node);
+                // submit() adds and then checks the stack; we push and then
+                // check the queue, so one of us is bound to see the other
+                task = tasks.poll();
+                if (task != null) {
+                    if (node.item.compareAndSet(null, CANCELLED)) return task;
+                    // somebody handed us a job at the same time, so the
+                    // younger of the two has to find another worker
+                    var item = node.item.get();
+                    if (item != WAKE_UP) dispatch(item);
+                    return task;
+                }
+                var item = awaitItem(node);
+                if (item != WAKE_UP) return item;
+            }
+        }
+
+        private Runnable awaitItem(Node node) throws InterruptedException {
+            Runnable item;
+            while ((item = node.item.get()) == null) {
+                LockSupport.park(this);
+                if (Thread.interrupted() && node.item.compareAndSet(null, CANCELLED))
+                    throw new InterruptedException();
+            }
+            return item;
+        }
+    }
+}
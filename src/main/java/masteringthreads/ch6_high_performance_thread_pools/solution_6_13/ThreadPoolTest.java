@@ -0,0 +1,193 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_13;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testIdleWorkersStopOnShutdown() throws InterruptedException {
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+        var pool = new ThreadPool(3);
+        var latch = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            pool.submit(() -> {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        pool.shutdown();
+        for (var thread : threads) {
+            thread.join(1000);
+            assertFalse("idle worker still waiting", thread.isAlive());
+        }
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testIdleWorkersGetTasksHandedDirectly() throws InterruptedException {
+        var pool = new ThreadPool(2);
+        Thread.sleep(100);
+        for (int i = 0; i < 10; i++) {
+            var latch = new CountDownLatch(1);
+            pool.submit(latch::countDown);
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            // give the worker time to park again
+            Thread.sleep(20);
+        }
+        assertEquals(10, pool.getHandoffCount());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testBusyWorkersFallBackToTheQueue() throws InterruptedException {
+        var pool = new ThreadPool(2);
+        Thread.sleep(100);
+        var blocker = new CountDownLatch(1);
+        var started = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            pool.submit(() -> {
+                started.countDown();
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertEquals(2, pool.getHandoffCount());
+        var latch = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            pool.submit(latch::countDown);
+        }
+        assertEquals(5, pool.getRunQueueLength());
+        assertEquals(2, pool.getHandoffCount());
+        blocker.countDown();
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(0, pool.getRunQueueLength());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testNoTasksAreLostWhenWorkersPark() throws InterruptedException {
+        var pool = new ThreadPool(8);
+        var count = new LongAdder();
+        for (int round = 0; round < 1000; round++) {
+            var latch = new CountDownLatch(3);
+            for (int i = 0; i < 3; i++) {
+                pool.submit(() -> {
+                    count.increment();
+                    latch.countDown();
+                });
+            }
+            assertTrue("lost wakeup in round " + round,
+                latch.await(1, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        assertEquals(3000, count.sum());
+    }
+
+    @Test
+    public void testConcurrentSubmittersDoNotLoseTasks() throws InterruptedException {
+        var pool = new ThreadPool(4);
+        var latch = new CountDownLatch(100_000);
+        var submitters = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            var submitter = new Thread(() -> {
+                for (int j = 0; j < 25_000; j++) {
+                    pool.submit(latch::countDown);
+                }
+            });
+            submitter.start();
+            submitters.add(submitter);
+        }
+        for (var submitter : submitters) submitter.join();
+        assertTrue("tasks were lost, " + latch.getCount() + " left",
+            latch.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private volatile Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
@@ -0,0 +1,159 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_14;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+// solution #18 - per-task deadlines and cooperative cancellation
+public class ThreadPool implements TaskPool {
+    private static final int MIN_PURGE = 1024;
+    // nanoTime() may wrap, so we compare the difference rather than the values
+    private static final Comparator<TimedTask> BY_DEADLINE =
+        (a, b) -> Long.compare(a.deadline() - b.deadline(), 0);
+
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    // timed tasks that have just started, handed over to the watchdog with
+    // a single CAS; finished tasks are never removed, the watchdog skips them
+    private final Queue<TimedTask> started = new ConcurrentLinkedQueue<>();
+    private final Watchdog watchdog = new Watchdog();
+    // when the watchdog is parked, and until when; a task with an earlier
+    // deadline has to wake it up
+    private volatile boolean watchdogParked;
+    private volatile boolean watchdogIdle;
+    private volatile long watchdogWakeUp;
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        watchdog.start();
+    }
+
+    private Runnable take() throws InterruptedException {
+        return tasks.take();
+    }
+
+    public void submit(Runnable job) {
+        tasks.add(job);
+    }
+
+    /**
+     * Submits a job that has to finish within the timeout. If it is still
+     * waiting in the queue when the timeout has passed, it is thrown away;
+     * if it is still running, the worker is interrupted.
+     */
+    public TimedTask submit(Runnable job, long timeout, TimeUnit unit) {
+        Objects.requireNonNull(job, "job");
+        var task = new TimedTask(job, System.nanoTime() + unit.toNanos(timeout));
+        tasks.add(() -> runTimed(task));
+        return task;
+    }
+
+    private void runTimed(TimedTask task) {
+        if (!task.start()) {
+            if (task.isExpired()) expired.increment();
+            return;
+        }
+        started.add(task);
+        if (watchdogParked && (watchdogIdle || task.deadline() - watchdogWakeUp < 0))
+            LockSupport.unpark(watchdog);
+        try {
+            task.run();
+        } finally {
+            task.finish();
+        }
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    /**
+     * @return the number of tasks whose deadline passed while they were
+     * queued, so they were discarded without running
+     */
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    /**
+     * @return the number of tasks that were interrupted because they were
+     * still running at their deadline
+     */
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    public void shutdown() {
+        running = false;
+        watchdog.interrupt();
+        workers.forEach(Thread::interrupt);
+    }
+
+    private class Watchdog extends Thread {
+        public Watchdog() {
+            super("watchdog");
+            setDaemon(true);
+        }
+
+        public void run() {
+            // only touched by the watchdog, so it needs no locking
+            var deadlines = new PriorityQueue<>(BY_DEADLINE);
+            int purgeAt = MIN_PURGE;
+            while (running) {
+                TimedTask task;
+                while ((task = started.poll()) != null) deadlines.add(task);
+                if (deadlines.size() >= purgeAt) {
+                    // most of these have usually finished long before their
+                    // deadline, so do not let them pile up
+                    deadlines.removeIf(TimedTask::isDone);
+                    purgeAt = Math.max(MIN_PURGE, deadlines.size() * 2);
+                }
+                var next = deadlines.peek();
+                long now = System.nanoTime();
+                if (next != null && next.deadline() - now <= 0) {
+                    deadlines.poll();
+                    // false if the task had already finished
+                    if (next.timeOut()) timedOut.increment();
+                    continue;
+                }
+                watchdogIdle = next == null;
+                if (next != null) watchdogWakeUp = next.deadline();
+                watchdogParked = true;
+                if (started.isEmpty() && running) {
+                    if (next == null) LockSupport.park(ThreadPool.this);
+                    else LockSupport.parkNanos(ThreadPool.this, next.deadline() - now);
+                }
+                watchdogParked = false;
+            }
+        }
+    }
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next task from the queue using take()
+                // we then call the run() method on the job
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_14;
+
+import org.junit.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testIdleWorkersStopOnShutdown() throws InterruptedException {
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+        var pool = new ThreadPool(3);
+        var latch = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            pool.submit(() -> {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        pool.shutdown();
+        for (var thread : threads) {
+            thread.join(1000);
+            assertFalse("idle worker still waiting", thread.isAlive());
+        }
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testTasksWithinTheirDeadlineRunNormally() throws InterruptedException {
+        var pool = new ThreadPool(2);
+        var latch = new CountDownLatch(1);
+        var task = pool.submit(latch::countDown, 1, TimeUnit.SECONDS);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertTrue(task.isDone());
+        assertFalse(task.isExpired());
+        assertFalse(task.isTimedOut());
+        assertFalse(task.isCancelled());
+        assertEquals(0, pool.getExpiredCount());
+        assertEquals(0, pool.getTimedOutCount());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testExpiredTasksAreDiscardedWithoutRunning() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var blocker = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        var ran = new AtomicBoolean();
+        var stale = pool.submit(() -> ran.set(true), 50, TimeUnit.MILLISECONDS);
+        var fresh = new CountDownLatch(1);
+        pool.submit(fresh::countDown, 10, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        blocker.countDown();
+        assertTrue(fresh.await(1, TimeUnit.SECONDS));
+        assertFalse("expired task was run", ran.get());
+        assertTrue(stale.isExpired());
+        assertTrue(stale.isDone());
+        assertEquals(1, pool.getExpiredCount());
+        assertEquals(0, pool.getTimedOutCount());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testOverrunningTasksAreInterrupted() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var interrupted = new CountDownLatch(1);
+        var time = System.currentTimeMillis();
+        var task = pool.submit(() -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        time = System.currentTimeMillis() - time;
+        assertTrue("interrupted too early: " + time, time >= 100);
+        // the next task on the same worker must not see the interrupt
+        var clean = new AtomicBoolean();
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            clean.set(!Thread.currentThread().isInterrupted());
+            latch.countDown();
+        });
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue("interrupt leaked into the next task", clean.get());
+        assertTrue(task.isTimedOut());
+        assertEquals(1, pool.getTimedOutCount());
+        assertEquals(0, pool.getExpiredCount());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testEarlierDeadlineWakesUpTheWatchdog() throws InterruptedException {
+        var pool = new ThreadPool(2);
+        var interrupted = new CountDownLatch(2);
+        Runnable sleeper = () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        };
+        var late = pool.submit(sleeper, 3, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        var time = System.currentTimeMillis();
+        var early = pool.submit(sleeper, 100, TimeUnit.MILLISECONDS);
+        while (!early.isDone()) Thread.sleep(10);
+        time = System.currentTimeMillis() - time;
+        assertTrue("watchdog overslept: " + time, time < 1000);
+        assertTrue(early.isTimedOut());
+        assertFalse(late.isDone());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testCancelledTasksDoNotRun() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var blocker = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        var ran = new AtomicBoolean();
+        var task = pool.submit(() -> ran.set(true), 10, TimeUnit.SECONDS);
+        assertTrue(task.cancel());
+        assertFalse(task.cancel());
+        var latch = new CountDownLatch(1);
+        pool.submit(latch::countDown);
+        blocker.countDown();
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+        assertTrue(task.isCancelled());
+        assertEquals(0, pool.getExpiredCount());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testCancellingARunningTaskInterruptsIt() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var started = new CountDownLatch(1);
+        var interrupted = new CountDownLatch(1);
+        var task = pool.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        }, 10, TimeUnit.SECONDS);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertTrue(task.cancel());
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        assertTrue(task.isCancelled());
+        assertEquals(0, pool.getTimedOutCount());
+        pool.shutdown();
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private volatile Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
@@ -0,0 +1,101 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_14;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Handle for a task that was submitted with a deadline. If the deadline
+ * passes while the task is still queued, it is discarded without running;
+ * if it passes while the task is running, the worker is interrupted. Like
+ * all interrupts, this is cooperative, so the task has to check for it.
+ */
+public final class TimedTask {
+    private static final int QUEUED = 0, RUNNING = 1, INTERRUPTING = 2,
+        DONE = 3, EXPIRED = 4, TIMED_OUT = 5, CANCELLED = 6;
+
+    private final Runnable job;
+    private final long deadline;
+    private final AtomicInteger state = new AtomicInteger(QUEUED);
+    private volatile Thread runner;
+
+    TimedTask(Runnable job, long deadline) {
+        this.job = job;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Called by the worker before running the job.
+     *
+     * @return false if the task was cancelled or its deadline has passed
+     */
+    boolean start() {
+        runner = Thread.currentThread();
+        if (System.nanoTime() - deadline >= 0) {
+            state.compareAndSet(QUEUED, EXPIRED);
+            return false;
+        }
+        return state.compareAndSet(QUEUED, RUNNING);
+    }
+
+    long deadline() {
+        return deadline;
+    }
+
+    void run() {
+        job.run();
+    }
+
+    void finish() {
+        if (state.compareAndSet(RUNNING, DONE)) return;
+        // we lost the race against the watchdog or cancel(); wait until
+        // their interrupt has arrived, so that we can clear it before it
+        // hits the next task on this worker
+        while (state.get() == INTERRUPTING) Thread.onSpinWait();
+        Thread.interrupted();
+    }
+
+    boolean timeOut() {
+        return interrupt(TIMED_OUT);
+    }
+
+    private boolean interrupt(int outcome) {
+        if (!state.compareAndSet(RUNNING, INTERRUPTING)) return false;
+        try {
+            runner.interrupt();
+        } finally {
+            state.set(outcome);
+        }
+        return true;
+    }
+
+    /**
+     * Stops the task from running if it is still queued, otherwise
+     * interrupts the worker that is running it.
+     *
+     * @return true if this call cancelled the task
+     */
+    public boolean cancel() {
+        return state.compareAndSet(QUEUED, CANCELLED) || interrupt(CANCELLED);
+    }
+
+    public boolean isCancelled() {
+        return state.get() == CANCELLED;
+    }
+
+    /**
+     * @return true if the deadline passed while the task was still queued
+     */
+    public boolean isExpired() {
+        return state.get() == EXPIRED;
+    }
+
+    /**
+     * @return true if the task was interrupted for overrunning its deadline
+     */
+    public boolean isTimedOut() {
+        return state.get() == TIMED_OUT;
+    }
+
+    public boolean isDone() {
+        return state.get() >= DONE;
+    }
+}
@@ -0,0 +1,150 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_15;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// solution #19 - tasks submitted from a worker run next on that worker
+public class ThreadPool implements TaskPool {
+    // how long a thief gives the owner to get to its runNext task first
+    private static final long STEAL_DELAY_MICROS = 50;
+    // tells an idle worker to go and look for runNext tasks to steal
+    private static final Runnable STEAL = () -> {};
+    private static final int NO_THIEF = 0, THIEF_QUEUED = 1, THIEF_STEALING = 2;
+
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleWorkers = new AtomicInteger();
+    // we only ever send one thief at a time
+    private final AtomicInteger thief = new AtomicInteger(NO_THIEF);
+    private final LongAdder stolen = new LongAdder();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    private Runnable take() throws InterruptedException {
+        return tasks.take();
+    }
+
+    /**
+     * If we are called from one of our own workers, the job goes into its
+     * runNext slot and runs as soon as the current task is done, on the
+     * same thread with warm caches. Like Go's runnext, a job that was
+     * already in the slot is kicked out to the back of the queue.
+     */
+    public void submit(Runnable job) {
+        Objects.requireNonNull(job, "job");
+        if (Thread.currentThread() instanceof Worker worker && worker.pool() == this) {
+            var kicked = worker.runNext.getAndSet(job);
+            if (kicked != null) tasks.add(kicked);
+            else sendThief();
+            return;
+        }
+        tasks.add(job);
+    }
+
+    // if the owner keeps on running for a long time after submitting, an
+    // idle worker should take the job rather than leave it waiting
+    private void sendThief() {
+        if (idleWorkers.get() > 0 && thief.compareAndSet(NO_THIEF, THIEF_QUEUED))
+            tasks.add(STEAL);
+    }
+
+    private boolean hasRunNextTasks() {
+        for (var worker : workers) {
+            if (worker.runNext.get() != null) return true;
+        }
+        return false;
+    }
+
+    public int getRunQueueLength() {
+        int length = tasks.size();
+        if (thief.get() == THIEF_QUEUED) length--;
+        for (var worker : workers) {
+            if (worker.runNext.get() != null) length++;
+        }
+        return Math.max(0, length);
+    }
+
+    /**
+     * @return the number of runNext tasks that were stolen by another
+     * worker because their owner was still busy
+     */
+    public long getStolenCount() {
+        return stolen.sum();
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private class Worker extends Thread {
+        // only the owner puts tasks in here, but thieves may take them out
+        private final AtomicReference<Runnable> runNext = new AtomicReference<>();
+
+        public Worker(String name) {
+            super(name);
+        }
+
+        private ThreadPool pool() {
+            return ThreadPool.this;
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // our own runNext task goes first, then the shared queue
+                try {
+                    var task = runNext.getAndSet(null);
+                    if (task == null) {
+                        idleWorkers.incrementAndGet();
+                        try {
+                            // a submit() that saw no idle workers did not
+                            // send a thief, so we have to look ourselves,
+                            // otherwise a task that waits for its runNext
+                            // child would wait forever
+                            if (hasRunNextTasks()) sendThief();
+                            task = take();
+                        } finally {
+                            idleWorkers.decrementAndGet();
+                        }
+                    }
+                    if (task == STEAL) task = steal();
+                    if (task != null) task.run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+
+        private Runnable steal() throws InterruptedException {
+            thief.set(THIEF_STEALING);
+            try {
+                // usually the owner finishes its task and gets there first
+                TimeUnit.MICROSECONDS.sleep(STEAL_DELAY_MICROS);
+                for (var victim : workers) {
+                    if (victim == this) continue;
+                    var task = victim.runNext.getAndSet(null);
+                    if (task != null) {
+                        stolen.increment();
+                        return task;
+                    }
+                }
+                return null;
+            } finally {
+                thief.set(NO_THIEF);
+                // other busy owners might also have something waiting
+                if (hasRunNextTasks()) sendThief();
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_15;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testIdleWorkersStopOnShutdown() throws InterruptedException {
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+        var pool = new ThreadPool(3);
+        var latch = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            pool.submit(() -> {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        pool.shutdown();
+        for (var thread : threads) {
+            thread.join(1000);
+            assertFalse("idle worker still waiting", thread.isAlive());
+        }
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testFollowUpTasksRunNextOnTheSameWorker() throws InterruptedException {
+        var pool = new ThreadPool(4);
+        var sameThread = new LongAdder();
+        var latch = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            pool.submit(() -> {
+                var first = Thread.currentThread();
+                pool.submit(() -> {
+                    if (Thread.currentThread() == first) sameThread.increment();
+                    latch.countDown();
+                });
+            });
+            Thread.sleep(1);
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue("only " + sameThread.sum() + " ran on the same worker",
+            sameThread.sum() >= 90);
+        pool.shutdown();
+    }
+
+    @Test
+    public void testRunNextIsLifoAndKicksTheOlderTaskToTheQueue() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var order = new ConcurrentLinkedQueue<String>();
+        var latch = new CountDownLatch(3);
+        pool.submit(() -> {
+            pool.submit(() -> {
+                order.add("b");
+                latch.countDown();
+            });
+            pool.submit(() -> {
+                order.add("c");
+                latch.countDown();
+            });
+            order.add("a");
+            latch.countDown();
+        });
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "c", "b"), List.copyOf(order));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testIdleWorkersStealFromABusyOwner() throws InterruptedException {
+        var pool = new ThreadPool(2);
+        Thread.sleep(100);
+        var ranBy = new AtomicReference<Thread>();
+        var followUp = new CountDownLatch(1);
+        var owner = new AtomicReference<Thread>();
+        pool.submit(() -> {
+            owner.set(Thread.currentThread());
+            pool.submit(() -> {
+                ranBy.set(Thread.currentThread());
+                followUp.countDown();
+            });
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue("follow-up was not stolen",
+            followUp.await(500, TimeUnit.MILLISECONDS));
+        assertNotSame(owner.get(), ranBy.get());
+        assertEquals(1, pool.getStolenCount());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testParentCanWaitForItsChild() throws InterruptedException {
+        var pool = new ThreadPool(2);
+        // keep one worker busy, so that nobody is idle when the child is
+        // submitted and no thief is sent right away
+        pool.submit(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(50);
+        var childRan = new AtomicBoolean();
+        var parentDone = new CountDownLatch(1);
+        pool.submit(() -> {
+            var child = new CountDownLatch(1);
+            pool.submit(child::countDown);
+            try {
+                childRan.set(child.await(2, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            parentDone.countDown();
+        });
+        assertTrue(parentDone.await(3, TimeUnit.SECONDS));
+        assertTrue("child ran while parent waited", childRan.get());
+        assertEquals(1, pool.getStolenCount());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testRunNextTasksAreCountedInTheQueueLength() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var submitted = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        pool.submit(() -> {
+            pool.submit(() -> {});
+            submitted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(submitted.await(1, TimeUnit.SECONDS));
+        assertEquals(1, pool.getRunQueueLength());
+        release.countDown();
+        Thread.sleep(100);
+        assertEquals(0, pool.getRunQueueLength());
+        pool.shutdown();
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private volatile Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
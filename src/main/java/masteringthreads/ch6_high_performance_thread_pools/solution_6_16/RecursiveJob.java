@@ -0,0 +1,92 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_16;
+
+import java.util.concurrent.*;
+
+/**
+ * A divide-and-conquer job for our ThreadPool. compute() splits the work,
+ * fork()s the parts and join()s them again. A worker that joins does not
+ * block while there are still subtasks around; it runs them itself, so
+ * deep recursion does not starve the pool of workers.
+ */
+public abstract class RecursiveJob<V> implements Runnable {
+    // @GuardedBy("this") for the writes, the reads happen after done
+    private V result;
+    private Throwable failure;
+    private volatile boolean done;
+
+    protected abstract V compute();
+
+    /**
+     * Pushes this job onto the deque of the current worker, from where it
+     * is either run by that worker during join() or stolen by another.
+     */
+    public final RecursiveJob<V> fork() {
+        var pool = ThreadPool.current();
+        if (pool == null)
+            throw new IllegalStateException("fork() from outside the pool, use ThreadPool.invoke()");
+        pool.fork(this);
+        return this;
+    }
+
+    /**
+     * Waits for the result, running other subtasks in the meantime when
+     * called from inside the pool. If compute() failed, its exception is
+     * thrown here.
+     */
+    public final V join() {
+        if (!done) {
+            try {
+                var pool = ThreadPool.current();
+                if (pool != null) pool.helpJoin(this);
+                else await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("interrupted while joining");
+            }
+        }
+        return report();
+    }
+
+    /**
+     * Computes this job in the calling thread.
+     */
+    public final V invoke() {
+        run();
+        return report();
+    }
+
+    public final boolean isDone() {
+        return done;
+    }
+
+    public final void run() {
+        V result = null;
+        Throwable failure = null;
+        try {
+            result = compute();
+        } catch (Throwable t) {
+            failure = t;
+        }
+        synchronized (this) {
+            this.result = result;
+            this.failure = failure;
+            done = true;
+            notifyAll();
+        }
+    }
+
+    synchronized void await() throws InterruptedException {
+        while (!done) wait();
+    }
+
+    synchronized void await(long millis) throws InterruptedException {
+        if (!done) wait(millis);
+    }
+
+    private V report() {
+        if (failure instanceof RuntimeException e) throw e;
+        if (failure instanceof Error e) throw e;
+        if (failure != null) throw new CompletionException(failure);
+        return result;
+    }
+}
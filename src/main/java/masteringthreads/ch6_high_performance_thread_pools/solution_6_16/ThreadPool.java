@@ -0,0 +1,214 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_16;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+// solution #20 - fork/join on top of the work stealing pool
+public class ThreadPool implements TaskPool {
+    // how long a joiner waits before looking for more work to help with
+    private static final long JOIN_RESCAN_MILLIS = 1;
+
+    private final Worker[] workers;
+    // round-robin index for spreading external submits over the workers
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    // number of workers that have announced that they are about to park
+    private final AtomicInteger idleWorkers = new AtomicInteger();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        workers = new Worker[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            workers[i] = new Worker(i);
+        }
+        for (var worker : workers) {
+            worker.start();
+        }
+    }
+
+    public void submit(Runnable job) {
+        Objects.requireNonNull(job, "job");
+        var worker = workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)];
+        // like LinkedBlockingQueue, we only wake somebody up when the deque
+        // goes from empty to non-empty; whoever takes a task and sees that
+        // there is more work left passes the signal on
+        boolean wasEmpty = worker.queued.getAndIncrement() == 0;
+        worker.tasks.offerLast(job);
+        if (wasEmpty) signalWork(worker.index);
+    }
+
+    private void signalWork(int start) {
+        // only pay for the scan when somebody might be asleep
+        if (idleWorkers.get() == 0) return;
+        for (int i = 0; i < workers.length; i++) {
+            var worker = workers[(start + i) % workers.length];
+            if (worker.idle.compareAndSet(true, false)) {
+                LockSupport.unpark(worker);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs the job in the pool and waits for its result. Called from one of
+     * our workers, it helps out with other tasks while it waits.
+     */
+    public <V> V invoke(RecursiveJob<V> job) throws InterruptedException {
+        Objects.requireNonNull(job, "job");
+        if (current() == this) return job.invoke();
+        submit(job);
+        job.await();
+        return job.join();
+    }
+
+    // the pool that the calling thread works for, or null
+    static ThreadPool current() {
+        return Thread.currentThread() instanceof Worker worker ? worker.pool() : null;
+    }
+
+    // must be called from one of our workers
+    void fork(Runnable job) {
+        var worker = (Worker) Thread.currentThread();
+        // forks go to the head, so we run the newest, smallest subtask
+        // next, while thieves take the oldest, biggest ones from the tail
+        boolean wasEmpty = worker.queued.getAndIncrement() == 0;
+        worker.tasks.offerFirst(job);
+        if (wasEmpty) signalWork(worker.index);
+    }
+
+    // must be called from one of our workers
+    void helpJoin(RecursiveJob<?> job) throws InterruptedException {
+        var worker = (Worker) Thread.currentThread();
+        while (!job.isDone()) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            // usually the job is still on top of our own deque
+            var task = worker.findTask();
+            if (task != null) {
+                worker.runHelping(task);
+            } else {
+                // somebody stole it and there is nothing else to do, so we
+                // wait for a bit, but come back to look for new subtasks
+                job.await(JOIN_RESCAN_MILLIS);
+            }
+        }
+    }
+
+    public int getRunQueueLength() {
+        int length = 0;
+        for (var worker : workers) {
+            length += worker.queued.get();
+        }
+        return length;
+    }
+
+    public void shutdown() {
+        running = false;
+        for (var worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private class Worker extends Thread {
+        private final int index;
+        // we take from the head, thieves steal from the tail
+        private final Deque<Runnable> tasks = new ConcurrentLinkedDeque<>();
+        // incremented before adding and decremented after removing, so it
+        // is never less than the number of tasks in our deque
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean idle = new AtomicBoolean();
+
+        public Worker(int index) {
+            super("worker-" + index);
+            this.index = index;
+        }
+
+        private ThreadPool pool() {
+            return ThreadPool.this;
+        }
+
+        // a task that fails while we are helping must not end up in the
+        // compute() of the job that we are joining
+        private void runHelping(Runnable task) {
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                getUncaughtExceptionHandler().uncaughtException(this, e);
+            }
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // first look in our own deque, then try to steal from
+                // the others, and only park when there is nothing at all
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+
+        private Runnable take() throws InterruptedException {
+            while (true) {
+                if (Thread.interrupted()) throw new InterruptedException();
+                var task = findTask();
+                if (task != null) return task;
+                // announce that we are idle before we check one last time,
+                // otherwise a submit() could slip in between and we would
+                // sleep with work in the queues
+                idle.set(true);
+                idleWorkers.incrementAndGet();
+                try {
+                    task = findTask();
+                    if (task != null) return task;
+                    // a submit() that bumped a counter before a removal was
+                    // counted down did not see that deque as empty and will
+                    // not wake anybody, so we only sleep once all are zero
+                    if (getRunQueueLength() > 0) {
+                        Thread.yield();
+                        continue;
+                    }
+                    while (idle.get()) {
+                        LockSupport.park(this);
+                        if (Thread.interrupted()) throw new InterruptedException();
+                    }
+                } finally {
+                    idle.set(false);
+                    idleWorkers.decrementAndGet();
+                }
+            }
+        }
+
+        private Runnable findTask() {
+            var task = tasks.pollFirst();
+            if (task != null) {
+                removed();
+                return task;
+            }
+            return steal();
+        }
+
+        private Runnable steal() {
+            if (workers.length < 2) return null;
+            int start = ThreadLocalRandom.current().nextInt(workers.length);
+            for (int i = 0; i < workers.length; i++) {
+                var victim = workers[(start + i) % workers.length];
+                if (victim == this) continue;
+                var task = victim.tasks.pollLast();
+                if (task != null) {
+                    victim.removed();
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        private void removed() {
+            if (queued.decrementAndGet() > 0) signalWork(index);
+        }
+    }
+}
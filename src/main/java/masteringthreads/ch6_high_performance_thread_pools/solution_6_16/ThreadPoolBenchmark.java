@@ -0,0 +1,86 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_16;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// recursive sum: sequential vs our fork/join vs the JDK's ForkJoinPool
+public class ThreadPoolBenchmark {
+    private static final int THRESHOLD = 10_000;
+    private static final int REPEATS = 20;
+
+    public static void main(String... args) throws InterruptedException {
+        var numbers = new long[20_000_000];
+        Arrays.setAll(numbers, i -> i);
+        int poolSize = Runtime.getRuntime().availableProcessors();
+        var pool = new ThreadPool(poolSize);
+        var forkJoinPool = new ForkJoinPool(poolSize);
+        for (int run = 0; run < 5; run++) {
+            var bm = new Benchmark();
+            bm.start();
+            long sum = 0;
+            for (int i = 0; i < REPEATS; i++) sum += Arrays.stream(numbers).sum();
+            bm.stop();
+            System.out.println("sequential " + sum + ": " + bm);
+
+            bm.start();
+            sum = 0;
+            for (int i = 0; i < REPEATS; i++) sum += pool.invoke(new Sum(numbers, 0, numbers.length));
+            bm.stop();
+            System.out.println("ThreadPool " + sum + ": " + bm);
+
+            bm.start();
+            sum = 0;
+            for (int i = 0; i < REPEATS; i++) sum += forkJoinPool.invoke(new JdkSum(numbers, 0, numbers.length));
+            bm.stop();
+            System.out.println("ForkJoinPool " + sum + ": " + bm);
+        }
+        pool.shutdown();
+        forkJoinPool.shutdown();
+    }
+
+    private static long sum(long[] numbers, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) sum += numbers[i];
+        return sum;
+    }
+
+    private static class Sum extends RecursiveJob<Long> {
+        private final long[] numbers;
+        private final int from, to;
+
+        private Sum(long[] numbers, int from, int to) {
+            this.numbers = numbers;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected Long compute() {
+            if (to - from <= THRESHOLD) return sum(numbers, from, to);
+            int middle = (from + to) >>> 1;
+            var left = new Sum(numbers, from, middle).fork();
+            return new Sum(numbers, middle, to).invoke() + left.join();
+        }
+    }
+
+    private static class JdkSum extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] numbers;
+        private final int from, to;
+
+        private JdkSum(long[] numbers, int from, int to) {
+            this.numbers = numbers;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected Long compute() {
+            if (to - from <= THRESHOLD) return sum(numbers, from, to);
+            int middle = (from + to) >>> 1;
+            var left = new JdkSum(numbers, from, middle).fork();
+            return new JdkSum(numbers, middle, to).compute() + left.join();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_16;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testRecursiveSumOverALargeArray() throws InterruptedException {
+        var numbers = new long[10_000_000];
+        Arrays.setAll(numbers, i -> i);
+        var pool = new ThreadPool(4);
+        long sum = pool.invoke(new Sum(numbers, 0, numbers.length));
+        assertEquals(Arrays.stream(numbers).sum(), sum);
+        pool.shutdown();
+    }
+
+    @Test(timeout = 10_000)
+    public void testDeepRecursionDoesNotStarveASmallPool() throws InterruptedException {
+        // with blocking joins, two workers would deadlock at the second level
+        var pool = new ThreadPool(2);
+        assertEquals(75025, (int) pool.invoke(new Fibonacci(25)));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSubtasksAreStolenByIdleWorkers() throws InterruptedException {
+        var pool = new ThreadPool(4);
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+        pool.invoke(new RecursiveJob<Void>() {
+            protected Void compute() {
+                var children = new ArrayList<RecursiveJob<Void>>();
+                for (int i = 0; i < 8; i++) {
+                    children.add(new RecursiveJob<Void>() {
+                        protected Void compute() {
+                            threads.add(Thread.currentThread());
+                            try {
+                                Thread.sleep(100);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return null;
+                        }
+                    }.fork());
+                }
+                children.forEach(RecursiveJob::join);
+                return null;
+            }
+        });
+        assertTrue("only " + threads.size() + " workers helped", threads.size() > 1);
+        pool.shutdown();
+    }
+
+    @Test
+    public void testFailuresAreThrownFromJoin() throws InterruptedException {
+        var pool = new ThreadPool(2);
+        try {
+            pool.invoke(new RecursiveJob<Integer>() {
+                protected Integer compute() {
+                    var child = new RecursiveJob<Integer>() {
+                        protected Integer compute() {
+                            throw new IllegalArgumentException("expected in test");
+                        }
+                    }.fork();
+                    return child.join() + 1;
+                }
+            });
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            assertEquals("expected in test", expected.getMessage());
+        }
+        pool.shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testForkFromOutsideThePoolIsNotAllowed() {
+        new Fibonacci(10).fork();
+    }
+
+    @Test
+    public void testNoTasksAreLostWhileTheOwnerIsBusy() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        for (int round = 0; round < 2000; round++) {
+            var latch = new CountDownLatch(1000);
+            for (int i = 0; i < 1000; i++) {
+                pool.submit(latch::countDown);
+            }
+            assertTrue("lost wakeup in round " + round,
+                latch.await(1, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+    }
+
+    private static class Sum extends RecursiveJob<Long> {
+        private static final int THRESHOLD = 10_000;
+        private final long[] numbers;
+        private final int from, to;
+
+        private Sum(long[] numbers, int from, int to) {
+            this.numbers = numbers;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected Long compute() {
+            if (to - from <= THRESHOLD) {
+                long sum = 0;
+                for (int i = from; i < to; i++) sum += numbers[i];
+                return sum;
+            }
+            int middle = (from + to) >>> 1;
+            var left = new Sum(numbers, from, middle).fork();
+            long right = new Sum(numbers, middle, to).invoke();
+            return left.join() + right;
+        }
+    }
+
+    private static class Fibonacci extends RecursiveJob<Integer> {
+        private final int n;
+
+        private Fibonacci(int n) {
+            this.n = n;
+        }
+
+        protected Integer compute() {
+            if (n < 2) return n;
+            var f1 = new Fibonacci(n - 1).fork();
+            var f2 = new Fibonacci(n - 2).fork();
+            return f2.join() + f1.join();
+        }
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
@@ -0,0 +1,88 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_17;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A task that was forked in a TaskScope. Its result is only available
+ * once the owner has joined the scope.
+ */
+public final class Subtask<T> implements Runnable {
+    public enum State {UNAVAILABLE, SUCCESS, FAILED, CANCELLED}
+
+    private static final int QUEUED = 0, RUNNING = 1, INTERRUPTING = 2,
+        ABANDONED = 3, SUCCESS = 4, FAILED = 5, CANCELLED = 6;
+
+    private final TaskScope<? super T> scope;
+    private final Callable<? extends T> task;
+    private final AtomicInteger state = new AtomicInteger(QUEUED);
+    private volatile Thread runner;
+    private T result;
+    private Throwable exception;
+
+    Subtask(TaskScope<? super T> scope, Callable<? extends T> task) {
+        this.scope = scope;
+        this.task = task;
+    }
+
+    // runs on a worker of the pool
+    public void run() {
+        runner = Thread.currentThread();
+        if (!state.compareAndSet(QUEUED, RUNNING)) return;
+        int outcome;
+        try {
+            result = task.call();
+            outcome = SUCCESS;
+        } catch (Throwable t) {
+            exception = t;
+            outcome = FAILED;
+        }
+        if (!state.compareAndSet(RUNNING, outcome)) {
+            // the scope was shut down while we were running; wait for its
+            // interrupt to arrive, so that we can clear it before it hits
+            // the next task of this worker
+            while (state.get() == INTERRUPTING) Thread.onSpinWait();
+            Thread.interrupted();
+            state.set(CANCELLED);
+        }
+        scope.completed(this);
+    }
+
+    /**
+     * @return true if the subtask was still queued, so it will never run
+     */
+    boolean cancel() {
+        if (state.compareAndSet(QUEUED, CANCELLED)) return true;
+        if (state.compareAndSet(RUNNING, INTERRUPTING)) {
+            try {
+                runner.interrupt();
+            } finally {
+                state.set(ABANDONED);
+            }
+        }
+        return false;
+    }
+
+    public State state() {
+        return switch (state.get()) {
+            case SUCCESS -> State.SUCCESS;
+            case FAILED -> State.FAILED;
+            case CANCELLED -> State.CANCELLED;
+            default -> State.UNAVAILABLE;
+        };
+    }
+
+    public T get() {
+        scope.ensureJoined();
+        if (state.get() != SUCCESS)
+            throw new IllegalStateException("subtask did not succeed: " + state());
+        return result;
+    }
+
+    public Throwable exception() {
+        scope.ensureJoined();
+        if (state.get() != FAILED)
+            throw new IllegalStateException("subtask did not fail: " + state());
+        return exception;
+    }
+}
@@ -0,0 +1,187 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_17;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Forks subtasks onto a pool and joins them again, in the style of the
+ * JDK's StructuredTaskScope. When the outcome is decided, either by the
+ * first failure or by the first success, the scope shuts down: subtasks
+ * that are still queued never run, and running ones are interrupted, so
+ * that they do not keep on burning worker time after we have given up.
+ * <pre>
+ * try (var scope = TaskScope.&lt;Object&gt;shutdownOnFailure(pool)) {
+ *     var user = scope.fork(() -&gt; findUser());
+ *     var order = scope.fork(() -&gt; fetchOrder());
+ *     scope.join().throwIfFailed();
+ *     return new Response(user.get(), order.get());
+ * }
+ * </pre>
+ */
+public final class TaskScope<T> implements AutoCloseable {
+    private enum Policy {SHUTDOWN_ON_FAILURE, SHUTDOWN_ON_SUCCESS}
+
+    private final TaskPool pool;
+    private final Policy policy;
+    private final Thread owner = Thread.currentThread();
+    private final Collection<Subtask<? extends T>> subtasks = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Subtask<? extends T>> firstSuccess = new AtomicReference<>();
+    private final AtomicReference<Subtask<? extends T>> firstFailure = new AtomicReference<>();
+    // @GuardedBy("this")
+    private int unfinished;
+    private volatile boolean shutdown;
+    // only touched by the owner
+    private boolean joined, closed;
+
+    private TaskScope(TaskPool pool, Policy policy) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.policy = policy;
+    }
+
+    /**
+     * All subtasks have to succeed, so we give up as soon as one fails.
+     */
+    public static <T> TaskScope<T> shutdownOnFailure(TaskPool pool) {
+        return new TaskScope<>(pool, Policy.SHUTDOWN_ON_FAILURE);
+    }
+
+    /**
+     * The subtasks race against each other and the first one to succeed
+     * wins; the others are cancelled.
+     */
+    public static <T> TaskScope<T> shutdownOnSuccess(TaskPool pool) {
+        return new TaskScope<>(pool, Policy.SHUTDOWN_ON_SUCCESS);
+    }
+
+    public <U extends T> Subtask<U> fork(Callable<? extends U> task) {
+        Objects.requireNonNull(task, "task");
+        ensureOwner();
+        if (closed) throw new IllegalStateException("scope is closed");
+        var subtask = new Subtask<U>(this, task);
+        // forking after shutdown gives us a subtask that never runs
+        if (shutdown) {
+            subtask.cancel();
+            return subtask;
+        }
+        synchronized (this) {
+            unfinished++;
+        }
+        subtasks.add(subtask);
+        joined = false;
+        pool.submit(subtask);
+        // shutdown() might have missed the subtask that we just added
+        if (shutdown && subtask.cancel()) finished();
+        return subtask;
+    }
+
+    /**
+     * Waits until all subtasks are done, or until the scope is shut down.
+     */
+    public TaskScope<T> join() throws InterruptedException {
+        ensureOwner();
+        synchronized (this) {
+            while (unfinished > 0 && !shutdown) wait();
+        }
+        joined = true;
+        return this;
+    }
+
+    /**
+     * Cancels all subtasks that are not done yet. Queued subtasks will
+     * never run and running ones are interrupted.
+     */
+    public void shutdown() {
+        if (shutdown) return;
+        shutdown = true;
+        for (var subtask : subtasks) {
+            if (subtask.cancel()) finished();
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * @throws ExecutionException with the exception of the first subtask
+     *                            that failed, if any
+     */
+    public void throwIfFailed() throws ExecutionException {
+        ensureOwner();
+        ensureJoined();
+        var failure = firstFailure.get();
+        if (failure != null) throw new ExecutionException(failure.exception());
+    }
+
+    /**
+     * @return the result of the first subtask that succeeded
+     * @throws ExecutionException if none did, with the first failure
+     */
+    public T result() throws ExecutionException {
+        ensureOwner();
+        ensureJoined();
+        var success = firstSuccess.get();
+        if (success != null) return success.get();
+        var failure = firstFailure.get();
+        if (failure != null) throw new ExecutionException(failure.exception());
+        throw new IllegalStateException("no subtask completed");
+    }
+
+    /**
+     * Shuts down the scope and waits for the subtasks that are still
+     * running to notice, so that none of them outlive the scope.
+     */
+    public void close() {
+        ensureOwner();
+        if (closed) return;
+        closed = true;
+        shutdown();
+        boolean interrupted = false;
+        synchronized (this) {
+            while (unfinished > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    // called by the subtask, on the worker that ran it
+    void completed(Subtask<? extends T> subtask) {
+        switch (subtask.state()) {
+            case SUCCESS -> {
+                if (firstSuccess.compareAndSet(null, subtask)
+                    && policy == Policy.SHUTDOWN_ON_SUCCESS) shutdown();
+            }
+            case FAILED -> {
+                if (firstFailure.compareAndSet(null, subtask)
+                    && policy == Policy.SHUTDOWN_ON_FAILURE) shutdown();
+            }
+            default -> {}
+        }
+        finished();
+    }
+
+    private synchronized void finished() {
+        if (--unfinished == 0) notifyAll();
+    }
+
+    void ensureJoined() {
+        if (!joined && Thread.currentThread() == owner)
+            throw new IllegalStateException("join() the scope first");
+    }
+
+    private void ensureOwner() {
+        if (Thread.currentThread() != owner)
+            throw new WrongThreadException("only the owner may use the scope");
+    }
+}
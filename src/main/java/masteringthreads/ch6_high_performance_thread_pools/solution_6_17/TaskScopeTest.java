@@ -0,0 +1,188 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_17;
+
+import org.junit.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class TaskScopeTest {
+    private ThreadPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testAllSubtasksSucceed() throws Exception {
+        try (var scope = TaskScope.<Object>shutdownOnFailure(pool)) {
+            var name = scope.fork(() -> "Heinz");
+            var age = scope.fork(() -> 42);
+            scope.join().throwIfFailed();
+            assertEquals("Heinz", name.get());
+            assertEquals(42, (int) age.get());
+            assertEquals(Subtask.State.SUCCESS, name.state());
+        }
+    }
+
+    @Test
+    public void testFailureCancelsTheSiblings() throws Exception {
+        var interrupted = new CountDownLatch(1);
+        var queuedRan = new AtomicBoolean();
+        var twoWorkers = new ThreadPool(2);
+        long time = System.currentTimeMillis();
+        try (var scope = TaskScope.<Object>shutdownOnFailure(twoWorkers)) {
+            var slow = scope.fork(() -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return "slow";
+            });
+            var failing = scope.fork(() -> {
+                Thread.sleep(100);
+                throw new IllegalStateException("expected in test");
+            });
+            // both workers are busy, so this one is still queued
+            var queued = scope.fork(() -> queuedRan.getAndSet(true));
+            scope.join();
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+            try {
+                scope.throwIfFailed();
+                fail("Expected an ExecutionException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            assertEquals(Subtask.State.FAILED, failing.state());
+            assertEquals(Subtask.State.CANCELLED, queued.state());
+            assertNotEquals(Subtask.State.SUCCESS, slow.state());
+        }
+        time = System.currentTimeMillis() - time;
+        assertTrue("siblings were not cancelled promptly: " + time, time < 1000);
+        Thread.sleep(100);
+        assertFalse("queued sibling was run", queuedRan.get());
+        twoWorkers.shutdown();
+    }
+
+    @Test
+    public void testFirstSuccessWinsTheRace() throws Exception {
+        var losers = new CountDownLatch(2);
+        try (var scope = TaskScope.<String>shutdownOnSuccess(pool)) {
+            for (int i = 0; i < 2; i++) {
+                scope.fork(() -> {
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        losers.countDown();
+                        throw e;
+                    }
+                    return "slow";
+                });
+            }
+            scope.fork(() -> "fast");
+            scope.join();
+            assertEquals("fast", scope.result());
+            assertTrue("losers were not interrupted",
+                losers.await(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testRaceWhereEverybodyFails() throws Exception {
+        try (var scope = TaskScope.<String>shutdownOnSuccess(pool)) {
+            for (int i = 0; i < 3; i++) {
+                scope.fork(() -> {
+                    throw new IllegalArgumentException("expected in test");
+                });
+            }
+            scope.join();
+            try {
+                scope.result();
+                fail("Expected an ExecutionException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+        }
+    }
+
+    @Test
+    public void testCloseWaitsForRunningSubtasks() throws Exception {
+        var finished = new AtomicBoolean();
+        try (var scope = TaskScope.<Object>shutdownOnFailure(pool)) {
+            var started = new CountDownLatch(1);
+            scope.fork(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } finally {
+                    // pretend that cleaning up takes a while
+                    long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+                    while (System.nanoTime() < until) Thread.onSpinWait();
+                    finished.set(true);
+                }
+                return null;
+            });
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+        }
+        assertTrue("close() returned before the subtask was done", finished.get());
+    }
+
+    @Test
+    public void testInterruptDoesNotLeakIntoTheNextTask() throws Exception {
+        var oneWorker = new ThreadPool(1);
+        try (var scope = TaskScope.<Object>shutdownOnFailure(oneWorker)) {
+            var started = new CountDownLatch(1);
+            scope.fork(() -> {
+                started.countDown();
+                Thread.sleep(10_000);
+                return null;
+            });
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+            scope.shutdown();
+        }
+        var clean = new AtomicBoolean();
+        var latch = new CountDownLatch(1);
+        oneWorker.submit(() -> {
+            clean.set(!Thread.currentThread().isInterrupted());
+            latch.countDown();
+        });
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(clean.get());
+        oneWorker.shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testResultsNeedAJoinFirst() throws Exception {
+        try (var scope = TaskScope.<String>shutdownOnFailure(pool)) {
+            var subtask = scope.fork(() -> "hello");
+            Thread.sleep(100);
+            subtask.get();
+        }
+    }
+
+    @Test(expected = WrongThreadException.class)
+    public void testOnlyTheOwnerMayFork() throws Throwable {
+        try (var scope = TaskScope.<String>shutdownOnFailure(pool)) {
+            var failure = new AtomicReference<Throwable>();
+            var thread = new Thread(() -> {
+                try {
+                    scope.fork(() -> "hello");
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            thread.start();
+            thread.join();
+            throw failure.get();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_18;
+
+/**
+ * Told about every task that threw an exception or an error. The worker
+ * that ran the task carries on with the next one, unless it was an Error,
+ * in which case the worker dies and is replaced. Every call counts as one
+ * failure in {@link ThreadPool#getFailedCount()}.
+ */
+@FunctionalInterface
+public interface FailureHandler {
+    void failed(Runnable task, Throwable failure);
+
+    /**
+     * Prints the stack trace to System.err, like the default uncaught
+     * exception handler would have done when the worker died.
+     */
+    static FailureHandler printing() {
+        return (task, failure) -> {
+            System.err.print("Exception in task " + task + " on \""
+                + Thread.currentThread().getName() + "\" ");
+            failure.printStackTrace();
+        };
+    }
+
+    static FailureHandler ignoring() {
+        return (task, failure) -> {};
+    }
+}
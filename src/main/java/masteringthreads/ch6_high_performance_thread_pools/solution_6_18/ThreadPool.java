@@ -0,0 +1,113 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_18;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// solution #22 - workers survive failing tasks and dead workers are replaced
+public class ThreadPool implements TaskPool {
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    private final FailureHandler failureHandler;
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder replaced = new LongAdder();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        this(poolSize, FailureHandler.printing());
+    }
+
+    public ThreadPool(int poolSize, FailureHandler failureHandler) {
+        this.failureHandler = Objects.requireNonNull(failureHandler, "failureHandler");
+        for (int i = 0; i < poolSize; i++) {
+            startWorker("worker-" + i);
+        }
+    }
+
+    private void startWorker(String name) {
+        var worker = new Worker(name);
+        workers.add(worker);
+        worker.start();
+    }
+
+    private Runnable take() throws InterruptedException {
+        return tasks.take();
+    }
+
+    public void submit(Runnable job) {
+        tasks.add(job);
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    public int getPoolSize() {
+        return workers.size();
+    }
+
+    /**
+     * @return the number of tasks that threw an exception or an error
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * @return the number of workers that died, for example from an Error
+     * or a FailureHandler that threw, and were started again
+     */
+    public long getReplacedCount() {
+        return replaced.sum();
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            boolean died = true;
+            try {
+                // we run in an infinite loop:
+                while (running) {
+                    // remove the next task from the queue using take()
+                    // we then call the run() method on the job
+                    Runnable task;
+                    try {
+                        task = take();
+                    } catch (InterruptedException e) {
+                        // a task that left its interrupt behind must not
+                        // cost us a worker, only shutdown() may do that
+                        if (running) continue;
+                        break;
+                    }
+                    try {
+                        task.run();
+                    } catch (Throwable e) {
+                        failed.increment();
+                        failureHandler.failed(task, e);
+                        // after an Error we do not trust this thread anymore
+                        if (e instanceof Error error) throw error;
+                    }
+                }
+                died = false;
+            } finally {
+                workers.remove(this);
+                // an Error still gets us, but we keep up the pool size by
+                // starting a new worker under the same name
+                if (died && running) {
+                    replaced.increment();
+                    startWorker(getName());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_18;
+
+import org.junit.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testIdleWorkersStopOnShutdown() throws InterruptedException {
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+        var pool = new ThreadPool(3);
+        var latch = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            pool.submit(() -> {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        pool.shutdown();
+        for (var thread : threads) {
+            thread.join(1000);
+            assertFalse("idle worker still waiting", thread.isAlive());
+        }
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testFailingTasksDoNotShrinkThePool() throws InterruptedException {
+        var handled = new ConcurrentLinkedQueue<Runnable>();
+        var pool = new ThreadPool(10, (task, failure) -> handled.add(task));
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+        var latch = new CountDownLatch(50);
+        for (int i = 0; i < 50; i++) {
+            pool.submit(() -> {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+                throw new IllegalStateException("expected in test");
+            });
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(50, handled.size());
+        assertEquals(50, pool.getFailedCount());
+        assertEquals(0, pool.getReplacedCount());
+        assertEquals(10, pool.getPoolSize());
+        assertTrue(threads.stream().allMatch(Thread::isAlive));
+        checkStandardThreadPoolFunctionality(pool);
+    }
+
+    @Test
+    public void testDeadWorkersAreReplaced() throws InterruptedException {
+        var pool = new ThreadPool(10, FailureHandler.ignoring());
+        var died = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            pool.submit(() -> {
+                var thread = Thread.currentThread();
+                // keep the console clean, we expect these to die
+                thread.setUncaughtExceptionHandler((t, e) -> died.countDown());
+                throw new Error("expected in test");
+            });
+        }
+        assertTrue(died.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        // the errors are still reported before the workers die
+        assertEquals(10, pool.getFailedCount());
+        assertEquals(10, pool.getReplacedCount());
+        assertEquals(10, pool.getPoolSize());
+        checkStandardThreadPoolFunctionality(pool);
+    }
+
+    @Test
+    public void testFailingHandlerDoesNotShrinkThePool() throws InterruptedException {
+        var pool = new ThreadPool(10, (task, failure) -> {
+            Thread.currentThread().setUncaughtExceptionHandler((t, e) -> {});
+            throw new IllegalStateException("handler failed too");
+        });
+        for (int i = 0; i < 5; i++) {
+            pool.submit(() -> {
+                throw new IllegalArgumentException("expected in test");
+            });
+        }
+        Thread.sleep(200);
+        assertEquals(5, pool.getFailedCount());
+        assertEquals(5, pool.getReplacedCount());
+        assertEquals(10, pool.getPoolSize());
+        checkStandardThreadPoolFunctionality(pool);
+    }
+
+    @Test
+    public void testLeftoverInterruptsDoNotKillWorkers() throws InterruptedException {
+        var pool = new ThreadPool(2);
+        for (int i = 0; i < 10; i++) {
+            pool.submit(() -> Thread.currentThread().interrupt());
+        }
+        var latch = new CountDownLatch(2);
+        pool.submit(latch::countDown);
+        pool.submit(latch::countDown);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(2, pool.getPoolSize());
+        assertEquals(0, pool.getReplacedCount());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testNoReplacementsAfterShutdown() throws InterruptedException {
+        var pool = new ThreadPool(3);
+        Thread.sleep(100);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertEquals(0, pool.getPoolSize());
+        assertEquals(0, pool.getReplacedCount());
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private volatile Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
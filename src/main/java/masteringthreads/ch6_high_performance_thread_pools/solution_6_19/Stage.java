@@ -0,0 +1,363 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_19;
+
+import java.lang.invoke.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+/**
+ * A step in an asynchronous pipeline, similar to CompletableFuture, but
+ * with all stages running in one ThreadPool. When a stage completes on a
+ * worker of that pool, the next stage of the chain runs straight away on
+ * the same worker, rather than going through the queue again. If several
+ * stages depend on it, the others are forked to the pool, so that they
+ * run in parallel. A dependent stage is its own continuation, so every
+ * step of a chain allocates only one object, unless it has to be queued.
+ */
+public class Stage<T> {
+    private static final VarHandle RESULT;
+    private static final VarHandle STACK;
+
+    static {
+        try {
+            var lookup = MethodHandles.lookup();
+            RESULT = lookup.findVarHandle(Stage.class, "result", Object.class);
+            STACK = lookup.findVarHandle(Stage.class, "stack", Stage.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final Object NIL = new Object();
+    private static final Stage<?> DONE = new Stage<>(null);
+    // stages that complete while this thread is already releasing the
+    // dependents of another stage wait here, instead of recursing, so
+    // that even a long chain of relays only needs a few stack frames
+    private static final ThreadLocal<Trampoline> TRAMPOLINE = ThreadLocal.withInitial(Trampoline::new);
+
+    private final ThreadPool pool;
+    // null while pending, then NIL for a null value, a Failure or the value
+    private volatile Object result;
+    // stages waiting for us, or DONE once they have all been released
+    private volatile Stage<?> stack;
+    // the next stage on the stack of the stage that we depend on
+    private Stage<?> next;
+
+    Stage(ThreadPool pool) {
+        this.pool = pool;
+    }
+
+    public static <T> Stage<T> supplyAsync(Supplier<? extends T> supplier, ThreadPool pool) {
+        Objects.requireNonNull(supplier, "supplier");
+        var stage = new Supply<T>(Objects.requireNonNull(pool, "pool"), supplier);
+        pool.submit(stage::fire);
+        return stage;
+    }
+
+    /**
+     * A stage that is completed from outside, for example by the callback
+     * of an asynchronous I/O library.
+     */
+    public static <T> Stage<T> incomplete(ThreadPool pool) {
+        return new Stage<>(Objects.requireNonNull(pool, "pool"));
+    }
+
+    public boolean complete(T value) {
+        return completeRaw(value == null ? NIL : value);
+    }
+
+    public boolean completeExceptionally(Throwable exception) {
+        return completeRaw(new Failure(Objects.requireNonNull(exception, "exception")));
+    }
+
+    public <U> Stage<U> thenApply(Function<? super T, ? extends U> fn) {
+        return then(new Apply<>(pool, this, Objects.requireNonNull(fn, "fn")));
+    }
+
+    public Stage<Void> thenAccept(Consumer<? super T> action) {
+        Objects.requireNonNull(action, "action");
+        return then(new Apply<T, Void>(pool, this, value -> {
+            action.accept(value);
+            return null;
+        }));
+    }
+
+    public <U> Stage<U> thenCompose(Function<? super T, ? extends Stage<U>> fn) {
+        return then(new Compose<>(pool, this, Objects.requireNonNull(fn, "fn")));
+    }
+
+    public Stage<T> exceptionally(Function<Throwable, ? extends T> fn) {
+        return then(new Exceptionally<>(pool, this, Objects.requireNonNull(fn, "fn")));
+    }
+
+    public boolean isDone() {
+        return result != null;
+    }
+
+    /**
+     * Waits for the result.
+     *
+     * @throws CompletionException if this or an earlier stage failed
+     */
+    public T join() throws InterruptedException {
+        if (result == null) {
+            var waiter = new Waiter(Thread.currentThread());
+            if (push(waiter)) {
+                try {
+                    while (result == null) {
+                        if (Thread.interrupted()) throw new InterruptedException();
+                        LockSupport.park(this);
+                    }
+                } finally {
+                    waiter.thread = null;
+                }
+            }
+        }
+        var r = result;
+        if (r instanceof Failure failure)
+            throw new CompletionException(failure.exception);
+        return value(r);
+    }
+
+    // called when the stage that we depend on is done
+    void fire() {
+    }
+
+    // continuations that only copy a result or unpark a thread always
+    // run straight away, on whichever thread completed the stage
+    boolean isCheap() {
+        return false;
+    }
+
+    private <U> Stage<U> then(Stage<U> dependent) {
+        if (!push(dependent)) dispatch(dependent);
+        return dependent;
+    }
+
+    boolean completeRaw(Object r) {
+        if (!RESULT.compareAndSet(this, null, r)) return false;
+        var trampoline = TRAMPOLINE.get();
+        if (trampoline.releasing) {
+            trampoline.completed.add(this);
+            return true;
+        }
+        trampoline.releasing = true;
+        try {
+            Stage<?> stage = this;
+            do {
+                stage.releaseDependents();
+            } while ((stage = trampoline.completed.poll()) != null);
+        } finally {
+            trampoline.releasing = false;
+            // only left over if a dependent threw an Error at us
+            Stage<?> stage;
+            while ((stage = trampoline.completed.poll()) != null) {
+                stage.pool.submit(stage::releaseDependents);
+            }
+        }
+        return true;
+    }
+
+    private void releaseDependents() {
+        var node = (Stage<?>) STACK.getAndSet(this, DONE);
+        // the stack is in reverse order of registration
+        Stage<?> reversed = null;
+        while (node != null) {
+            var next = node.next;
+            node.next = reversed;
+            reversed = node;
+            node = next;
+        }
+        // we keep one dependent for ourselves and fork the others first,
+        // so that they can start while we are still busy with ours
+        Stage<?> inline = null;
+        while (reversed != null) {
+            var dependent = reversed;
+            reversed = reversed.next;
+            dependent.next = null;
+            if (dependent.isCheap()) {
+                dependent.fire();
+            } else if (inline == null && dependent.pool.enterInline()) {
+                inline = dependent;
+            } else {
+                dependent.pool.submit(dependent::fire);
+            }
+        }
+        if (inline != null) inline.fire();
+    }
+
+    private void dispatch(Stage<?> dependent) {
+        if (dependent.isCheap() || dependent.pool.enterInline()) {
+            dependent.fire();
+        } else {
+            dependent.pool.submit(dependent::fire);
+        }
+    }
+
+    // returns false if we are already done and the node was not pushed
+    private boolean push(Stage<?> node) {
+        while (true) {
+            var head = stack;
+            if (head == DONE) return false;
+            node.next = head;
+            if (STACK.compareAndSet(this, head, node)) return true;
+        }
+    }
+
+    Object rawResult() {
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T value(Object r) {
+        return r == NIL ? null : (T) r;
+    }
+
+    static Object encode(Object value) {
+        return value == null ? NIL : value;
+    }
+
+    record Failure(Throwable exception) {
+    }
+
+    private static final class Trampoline {
+        private final Queue<Stage<?>> completed = new ArrayDeque<>();
+        private boolean releasing;
+    }
+
+    private static final class Supply<T> extends Stage<T> {
+        private Supplier<? extends T> supplier;
+
+        Supply(ThreadPool pool, Supplier<? extends T> supplier) {
+            super(pool);
+            this.supplier = supplier;
+        }
+
+        void fire() {
+            Object r;
+            try {
+                r = encode(supplier.get());
+            } catch (Throwable t) {
+                r = new Failure(t);
+            }
+            supplier = null;
+            completeRaw(r);
+        }
+    }
+
+    private static final class Apply<T, U> extends Stage<U> {
+        private Stage<T> source;
+        private Function<? super T, ? extends U> fn;
+
+        Apply(ThreadPool pool, Stage<T> source, Function<? super T, ? extends U> fn) {
+            super(pool);
+            this.source = source;
+            this.fn = fn;
+        }
+
+        void fire() {
+            var r = source.rawResult();
+            if (!(r instanceof Failure)) {
+                try {
+                    r = encode(fn.apply(value(r)));
+                } catch (Throwable t) {
+                    r = new Failure(t);
+                }
+            }
+            source = null;
+            fn = null;
+            completeRaw(r);
+        }
+    }
+
+    private static final class Compose<T, U> extends Stage<U> {
+        private Stage<T> source;
+        private Function<? super T, ? extends Stage<U>> fn;
+
+        Compose(ThreadPool pool, Stage<T> source, Function<? super T, ? extends Stage<U>> fn) {
+            super(pool);
+            this.source = source;
+            this.fn = fn;
+        }
+
+        void fire() {
+            var r = source.rawResult();
+            var fn = this.fn;
+            source = null;
+            this.fn = null;
+            if (r instanceof Failure) {
+                completeRaw(r);
+                return;
+            }
+            try {
+                var inner = Objects.requireNonNull(fn.apply(value(r)), "fn returned null");
+                inner.then(new Relay<>(inner, this));
+            } catch (Throwable t) {
+                completeRaw(new Failure(t));
+            }
+        }
+    }
+
+    private static final class Relay<U> extends Stage<U> {
+        private final Stage<U> source;
+        private final Stage<U> target;
+
+        Relay(Stage<U> source, Stage<U> target) {
+            super(null);
+            this.source = source;
+            this.target = target;
+        }
+
+        boolean isCheap() {
+            return true;
+        }
+
+        void fire() {
+            target.completeRaw(source.rawResult());
+        }
+    }
+
+    private static final class Exceptionally<T> extends Stage<T> {
+        private Stage<T> source;
+        private Function<Throwable, ? extends T> fn;
+
+        Exceptionally(ThreadPool pool, Stage<T> source, Function<Throwable, ? extends T> fn) {
+            super(pool);
+            this.source = source;
+            this.fn = fn;
+        }
+
+        void fire() {
+            var r = source.rawResult();
+            if (r instanceof Failure failure) {
+                try {
+                    r = encode(fn.apply(failure.exception));
+                } catch (Throwable t) {
+                    r = new Failure(t);
+                }
+            }
+            source = null;
+            fn = null;
+            completeRaw(r);
+        }
+    }
+
+    private static final class Waiter extends Stage<Void> {
+        private volatile Thread thread;
+
+        Waiter(Thread thread) {
+            super(null);
+            this.thread = thread;
+        }
+
+        boolean isCheap() {
+            return true;
+        }
+
+        void fire() {
+            var t = thread;
+            if (t != null) LockSupport.unpark(t);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_19;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class StageTest {
+    private ThreadPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testChainRunsInlineOnOneWorker() throws InterruptedException {
+        var threads = Collections.synchronizedList(new ArrayList<Thread>());
+        var latch = new CountDownLatch(1);
+        var result = pool.supply(() -> {
+            threads.add(Thread.currentThread());
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        });
+        for (int i = 0; i < 5; i++) {
+            result = result.thenApply(n -> {
+                threads.add(Thread.currentThread());
+                return n * 2;
+            });
+        }
+        latch.countDown();
+        assertEquals(32, (int) result.join());
+        assertEquals(6, threads.size());
+        assertEquals("all stages should run on the same worker",
+            1, new HashSet<>(threads).size());
+        assertEquals(5, pool.getInlinedCount());
+    }
+
+    @Test
+    public void testStagesAddedAfterCompletionRunInlineOnAWorker() throws InterruptedException {
+        var inner = new ArrayList<Thread>();
+        var result = pool.supply(() -> "hello").thenApply(s -> {
+            var outer = Thread.currentThread();
+            // the stage we just completed is done, so this runs straight away
+            Stage<String> done = Stage.incomplete(pool);
+            done.complete(s);
+            done.thenAccept(t -> inner.add(Thread.currentThread()));
+            inner.add(outer);
+            return s.length();
+        });
+        assertEquals(5, (int) result.join());
+        assertEquals(2, inner.size());
+        assertSame(inner.get(0), inner.get(1));
+    }
+
+    @Test
+    public void testContinuationsOfOutsideCompletionsRunInThePool() throws InterruptedException {
+        Stage<String> stage = Stage.incomplete(pool);
+        var ranOn = stage.thenApply(s -> Thread.currentThread());
+        stage.complete("from main");
+        assertTrue(ranOn.join().getName().startsWith("worker-"));
+        assertEquals(0, pool.getInlinedCount());
+    }
+
+    @Test
+    public void testFailuresSkipToExceptionally() throws InterruptedException {
+        var skipped = new ArrayList<String>();
+        var result = pool.supply(() -> {
+                throw new IllegalStateException("expected in test");
+            })
+            .thenApply(o -> {
+                skipped.add("apply");
+                return "not reached";
+            })
+            .exceptionally(e -> e.getClass().getSimpleName());
+        assertEquals("IllegalStateException", result.join());
+        assertTrue(skipped.isEmpty());
+    }
+
+    @Test
+    public void testJoinThrowsCompletionException() throws InterruptedException {
+        int zero = 0;
+        var result = pool.supply(() -> 42).thenApply(n -> n / zero);
+        try {
+            result.join();
+            fail("Expected a CompletionException");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof ArithmeticException);
+        }
+    }
+
+    @Test
+    public void testThenComposeWaitsForTheInnerStage() throws InterruptedException {
+        Stage<String> reply = Stage.incomplete(pool);
+        var result = pool.supply(() -> "request")
+            .thenCompose(request -> reply)
+            .thenApply(String::toUpperCase);
+        Thread.sleep(50);
+        assertFalse(result.isDone());
+        new Thread(() -> reply.complete("reply")).start();
+        assertEquals("REPLY", result.join());
+    }
+
+    @Test
+    public void testDeepChainsFallBackToTheQueue() throws InterruptedException {
+        var latch = new CountDownLatch(1);
+        var result = pool.supply(() -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        });
+        for (int i = 0; i < 10_000; i++) {
+            result = result.thenApply(n -> n + 1);
+        }
+        latch.countDown();
+        assertEquals(10_000, (int) result.join());
+        assertTrue(pool.getInlinedCount() < 10_000);
+    }
+
+    @Test
+    public void testDeepComposeChainsDoNotOverflowTheStack() throws InterruptedException {
+        Stage<Integer> leaf = Stage.incomplete(pool);
+        Stage<Integer> result = leaf;
+        for (int i = 0; i < 100_000; i++) {
+            var inner = result;
+            Stage<Integer> outer = Stage.incomplete(pool);
+            outer.complete(i);
+            result = outer.thenCompose(n -> inner);
+        }
+        // wait until every compose is waiting for its inner stage, so that
+        // completing the leaf releases 100k relays one after the other
+        while (pool.getRunQueueLength() > 0) Thread.sleep(10);
+        Thread.sleep(100);
+        pool.submit(() -> leaf.complete(42));
+        assertEquals(42, (int) result.join());
+    }
+
+    @Test
+    public void testFanOutDependentsRunInParallel() throws InterruptedException {
+        Stage<Integer> source = Stage.incomplete(pool);
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+        var dependents = new ArrayList<Stage<Integer>>();
+        for (int i = 0; i < 4; i++) {
+            dependents.add(source.thenApply(n -> {
+                threads.add(Thread.currentThread());
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return n;
+            }));
+        }
+        long time = System.nanoTime();
+        pool.submit(() -> source.complete(1));
+        for (var dependent : dependents) dependent.join();
+        time = System.nanoTime() - time;
+        assertEquals(4, threads.size());
+        assertTrue("dependents ran one after the other: " + time,
+            time < TimeUnit.MILLISECONDS.toNanos(600));
+    }
+
+    @Test
+    public void testNullValues() throws InterruptedException {
+        var result = pool.supply(() -> (String) null).thenApply(Objects::isNull);
+        assertTrue(result.join());
+    }
+}
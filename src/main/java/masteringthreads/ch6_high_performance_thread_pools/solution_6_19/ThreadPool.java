@@ -0,0 +1,102 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_19;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+// solution #23 - staged pipelines whose continuations run inline on the worker
+public class ThreadPool implements TaskPool {
+    // longer chains go back through the queue now and then, so that one
+    // pipeline cannot keep a worker away from the other tasks for long
+    private static final int MAX_INLINE_PER_TASK = 16;
+
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    private final LongAdder inlined = new LongAdder();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    private Runnable take() throws InterruptedException {
+        return tasks.take();
+    }
+
+    public void submit(Runnable job) {
+        tasks.add(job);
+    }
+
+    /**
+     * Starts a pipeline by running the supplier on one of our workers.
+     * The stages that follow also run in this pool.
+     */
+    public <T> Stage<T> supply(Supplier<? extends T> supplier) {
+        return Stage.supplyAsync(supplier, this);
+    }
+
+    // if we are one of our own workers and have not run too many
+    // continuations since we took our task, the caller may run the
+    // continuation right here
+    boolean enterInline() {
+        if (Thread.currentThread() instanceof Worker worker && worker.pool() == this
+            && worker.inlinedSinceTake < MAX_INLINE_PER_TASK) {
+            worker.inlinedSinceTake++;
+            inlined.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    /**
+     * @return the number of continuations that ran straight away on the
+     * worker that completed the previous stage, instead of being queued
+     */
+    public long getInlinedCount() {
+        return inlined.sum();
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private class Worker extends Thread {
+        // only touched by this worker
+        private int inlinedSinceTake;
+
+        public Worker(String name) {
+            super(name);
+        }
+
+        private ThreadPool pool() {
+            return ThreadPool.this;
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next task from the queue using take()
+                // we then call the run() method on the job
+                try {
+                    var task = take();
+                    inlinedSinceTake = 0;
+                    task.run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_19;
+
+import masteringthreads.util.*;
+
+import java.util.concurrent.*;
+
+// chains of six dependent steps: inline Stage vs a queue hop for every step
+public class ThreadPoolBenchmark {
+    private static final int POOL_SIZE = 4;
+    private static final int CHAINS = 200_000;
+    private static final int STEPS = 6;
+
+    public static void main(String... args) throws InterruptedException {
+        var pool = new ThreadPool(POOL_SIZE);
+        var executor = Executors.newFixedThreadPool(POOL_SIZE);
+        for (int run = 0; run < 5; run++) {
+            var bm = new Benchmark();
+            bm.start();
+            var latch = new CountDownLatch(CHAINS);
+            for (int i = 0; i < CHAINS; i++) {
+                var stage = pool.supply(() -> 0);
+                for (int step = 1; step < STEPS; step++) stage = stage.thenApply(n -> n + 1);
+                stage.thenAccept(n -> latch.countDown());
+            }
+            latch.await();
+            bm.stop();
+            System.out.println("Stage inline: " + bm + ", inlined=" + pool.getInlinedCount());
+
+            bm.start();
+            var cfLatch = new CountDownLatch(CHAINS);
+            for (int i = 0; i < CHAINS; i++) {
+                var future = CompletableFuture.supplyAsync(() -> 0, executor);
+                for (int step = 1; step < STEPS; step++) future = future.thenApplyAsync(n -> n + 1, executor);
+                future.thenAcceptAsync(n -> cfLatch.countDown(), executor);
+            }
+            cfLatch.await();
+            bm.stop();
+            System.out.println("CompletableFuture async: " + bm);
+        }
+        pool.shutdown();
+        executor.shutdown();
+    }
+}
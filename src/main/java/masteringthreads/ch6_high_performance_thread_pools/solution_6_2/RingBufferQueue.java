@@ -0,0 +1,277 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_2;
+
+import java.lang.invoke.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Bounded multi-producer multi-consumer queue based on Dmitry Vyukov's
+ * array queue. Every slot has a sequence number that tells producers and
+ * consumers whose turn it is, so offer() and poll() only need one CAS on
+ * the enqueue or dequeue position and never allocate. The capacity is
+ * rounded up to a power of two, and is at least two, since with a single
+ * slot the "full" and "empty" sequence numbers would be the same.
+ * <p>
+ * The blocking methods only take a lock when a thread actually has to
+ * wait. Producers and consumers check the waiter counts after every
+ * successful offer() or poll() and only then signal the condition.
+ */
+public class RingBufferQueue<E> extends AbstractQueue<E>
+    implements BlockingQueue<E> {
+    private static final VarHandle SEQUENCES =
+        MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle ELEMENTS =
+        MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final int mask;
+    private final long[] sequences;
+    private final Object[] elements;
+    private final Positions positions = new Positions();
+
+    private final Lock waitLock = new ReentrantLock();
+    private final Condition notEmpty = waitLock.newCondition();
+    private final Condition notFull = waitLock.newCondition();
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+
+    public RingBufferQueue(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("capacity=" + capacity);
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        sequences = new long[size];
+        elements = new Object[size];
+        Arrays.setAll(sequences, i -> i);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        long pos = positions.getEnqueue();
+        while (true) {
+            int index = (int) pos & mask;
+            long seq = (long) SEQUENCES.getAcquire(sequences, index);
+            long dif = seq - pos;
+            if (dif == 0) {
+                if (positions.casEnqueue(pos, pos + 1)) break;
+                pos = positions.getEnqueue();
+            } else if (dif < 0) {
+                return false; // full
+            } else {
+                pos = positions.getEnqueue();
+            }
+        }
+        int index = (int) pos & mask;
+        ELEMENTS.set(elements, index, e);
+        // volatile rather than release, so that reading the waiter count
+        // afterwards cannot be reordered before the publication
+        SEQUENCES.setVolatile(sequences, index, pos + 1);
+        if (waitingConsumers.get() > 0) signal(notEmpty);
+        return true;
+    }
+
+    public E poll() {
+        long pos = positions.getDequeue();
+        while (true) {
+            int index = (int) pos & mask;
+            long seq = (long) SEQUENCES.getAcquire(sequences, index);
+            long dif = seq - (pos + 1);
+            if (dif == 0) {
+                if (positions.casDequeue(pos, pos + 1)) break;
+                pos = positions.getDequeue();
+            } else if (dif < 0) {
+                return null; // empty
+            } else {
+                pos = positions.getDequeue();
+            }
+        }
+        int index = (int) pos & mask;
+        @SuppressWarnings("unchecked")
+        var e = (E) ELEMENTS.get(elements, index);
+        ELEMENTS.set(elements, index, null);
+        SEQUENCES.setVolatile(sequences, index, pos + mask + 1);
+        if (waitingProducers.get() > 0) signal(notFull);
+        return e;
+    }
+
+    public E peek() {
+        long pos = positions.getDequeue();
+        int index = (int) pos & mask;
+        if ((long) SEQUENCES.getAcquire(sequences, index) != pos + 1) return null;
+        @SuppressWarnings("unchecked")
+        var e = (E) ELEMENTS.getAcquire(elements, index);
+        return e;
+    }
+
+    private void signal(Condition condition) {
+        waitLock.lock();
+        try {
+            condition.signal();
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    public void put(E e) throws InterruptedException {
+        if (offer(e)) return;
+        waitLock.lockInterruptibly();
+        waitingProducers.incrementAndGet();
+        try {
+            while (!offer(e)) notFull.await();
+        } finally {
+            waitingProducers.decrementAndGet();
+            waitLock.unlock();
+        }
+    }
+
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (offer(e)) return true;
+        long nanos = unit.toNanos(timeout);
+        waitLock.lockInterruptibly();
+        waitingProducers.incrementAndGet();
+        try {
+            while (!offer(e)) {
+                if (nanos <= 0) return false;
+                nanos = notFull.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            waitingProducers.decrementAndGet();
+            waitLock.unlock();
+        }
+    }
+
+    public E take() throws InterruptedException {
+        var e = poll();
+        if (e != null) return e;
+        waitLock.lockInterruptibly();
+        waitingConsumers.incrementAndGet();
+        try {
+            while ((e = poll()) == null) notEmpty.await();
+            return e;
+        } finally {
+            waitingConsumers.decrementAndGet();
+            waitLock.unlock();
+        }
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        var e = poll();
+        if (e != null) return e;
+        long nanos = unit.toNanos(timeout);
+        waitLock.lockInterruptibly();
+        waitingConsumers.incrementAndGet();
+        try {
+            while ((e = poll()) == null) {
+                if (nanos <= 0) return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return e;
+        } finally {
+            waitingConsumers.decrementAndGet();
+            waitLock.unlock();
+        }
+    }
+
+    public int size() {
+        // read dequeue first, so that we never see a negative difference
+        long dequeue = positions.getDequeue();
+        long enqueue = positions.getEnqueue();
+        return (int) Math.max(0, Math.min(enqueue - dequeue, capacity()));
+    }
+
+    public int remainingCapacity() {
+        return capacity() - size();
+    }
+
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) throw new IllegalArgumentException();
+        int drained = 0;
+        E e;
+        while (drained < maxElements && (e = poll()) != null) {
+            c.add(e);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Weakly consistent iterator, which shows the elements that were in
+     * the queue at some point in time. Removal is not supported.
+     */
+    public Iterator<E> iterator() {
+        var snapshot = new ArrayList<E>();
+        long end = positions.getEnqueue();
+        for (long pos = positions.getDequeue(); pos < end; pos++) {
+            int index = (int) pos & mask;
+            if ((long) SEQUENCES.getAcquire(sequences, index) != pos + 1) continue;
+            @SuppressWarnings("unchecked")
+            var e = (E) ELEMENTS.getAcquire(elements, index);
+            if (e != null) snapshot.add(e);
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    // The enqueue and dequeue positions are written by different threads,
+    // so we pad them onto their own cache lines to avoid false sharing.
+    private static class PadBeforeEnqueue {
+        long p01, p02, p03, p04, p05, p06, p07, p08;
+    }
+
+    private static class Enqueue extends PadBeforeEnqueue {
+        volatile long enqueue;
+    }
+
+    private static class PadBetween extends Enqueue {
+        long p11, p12, p13, p14, p15, p16, p17, p18;
+    }
+
+    private static class Dequeue extends PadBetween {
+        volatile long dequeue;
+    }
+
+    private static class PadAfterDequeue extends Dequeue {
+        long p21, p22, p23, p24, p25, p26, p27, p28;
+    }
+
+    private static final class Positions extends PadAfterDequeue {
+        private static final VarHandle ENQUEUE;
+        private static final VarHandle DEQUEUE;
+
+        static {
+            try {
+                var lookup = MethodHandles.lookup();
+                ENQUEUE = lookup.findVarHandle(Enqueue.class, "enqueue", long.class);
+                DEQUEUE = lookup.findVarHandle(Dequeue.class, "dequeue", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        long getEnqueue() {
+            return enqueue;
+        }
+
+        boolean casEnqueue(long expected, long value) {
+            return ENQUEUE.compareAndSet(this, expected, value);
+        }
+
+        long getDequeue() {
+            return dequeue;
+        }
+
+        boolean casDequeue(long expected, long value) {
+            return DEQUEUE.compareAndSet(this, expected, value);
+        }
+    }
+}
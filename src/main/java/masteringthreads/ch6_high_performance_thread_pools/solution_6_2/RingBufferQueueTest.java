@@ -0,0 +1,113 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_2;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class RingBufferQueueTest {
+    @Test
+    public void testCapacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(2, new RingBufferQueue<>(1).capacity());
+        assertEquals(8, new RingBufferQueue<>(5).capacity());
+        assertEquals(16, new RingBufferQueue<>(16).capacity());
+    }
+
+    @Test
+    public void testFifoAndWrapAround() {
+        var queue = new RingBufferQueue<Integer>(4);
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 4; i++) assertTrue(queue.offer(round * 4 + i));
+            assertFalse("queue should be full", queue.offer(-1));
+            assertEquals(4, queue.size());
+            assertEquals(List.of(round * 4, round * 4 + 1, round * 4 + 2, round * 4 + 3),
+                new ArrayList<>(queue));
+            for (int i = 0; i < 4; i++) assertEquals(round * 4 + i, (int) queue.poll());
+            assertNull(queue.poll());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    public void testTakeBlocksUntilOffer() throws InterruptedException {
+        var queue = new RingBufferQueue<String>(2);
+        var result = new CompletableFuture<String>();
+        var consumer = new Thread(() -> {
+            try {
+                result.complete(queue.take());
+            } catch (InterruptedException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        consumer.start();
+        Thread.sleep(100);
+        assertFalse(result.isDone());
+        queue.offer("hello");
+        consumer.join(1000);
+        assertEquals("hello", result.getNow(null));
+    }
+
+    @Test
+    public void testPutBlocksUntilPoll() throws InterruptedException {
+        var queue = new RingBufferQueue<String>(2);
+        queue.put("first");
+        queue.put("second");
+        assertFalse(queue.offer("third", 50, TimeUnit.MILLISECONDS));
+        var producer = new Thread(() -> {
+            try {
+                queue.put("third");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Thread.sleep(100);
+        assertTrue(producer.isAlive());
+        assertEquals("first", queue.poll());
+        producer.join(1000);
+        assertFalse(producer.isAlive());
+        assertEquals("second", queue.poll(1, TimeUnit.SECONDS));
+        assertEquals("third", queue.poll(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testMultipleProducersAndConsumers() throws InterruptedException {
+        var queue = new RingBufferQueue<Integer>(64);
+        int producers = 4, consumers = 4, perProducer = 100_000;
+        var sum = new LongAdder();
+        var count = new LongAdder();
+        var threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 1; i <= perProducer; i++) queue.put(i);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        sum.add(queue.take());
+                        count.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (var thread : threads) {
+            thread.join(10_000);
+            assertFalse("deadlock in " + thread, thread.isAlive());
+        }
+        assertEquals(producers * perProducer, count.sum());
+        assertEquals(producers * (long) perProducer * (perProducer + 1) / 2, sum.sum());
+        assertTrue(queue.isEmpty());
+    }
+}
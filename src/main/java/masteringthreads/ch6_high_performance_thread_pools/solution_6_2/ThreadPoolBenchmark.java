@@ -0,0 +1,44 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_2;
+
+import masteringthreads.util.*;
+
+import java.util.concurrent.*;
+
+// compares the default LinkedBlockingQueue against the ring buffer
+public class ThreadPoolBenchmark {
+    private static final int POOL_SIZE = 8;
+    private static final int PRODUCERS = 4;
+    private static final int TASKS = 1_000_000;
+
+    public static void main(String... args) throws InterruptedException {
+        for (int run = 0; run < 5; run++) {
+            var linked = new ThreadPool(POOL_SIZE);
+            test("LinkedBlockingQueue", linked);
+            linked.shutdown();
+
+            var ring = new ThreadPool(POOL_SIZE, TASKS);
+            test("RingBufferQueue", ring);
+            ring.shutdown();
+        }
+    }
+
+    private static void test(String description, ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(TASKS);
+        Runnable task = latch::countDown;
+        var bm = new Benchmark();
+        bm.start();
+        var producers = new Thread[PRODUCERS];
+        for (int i = 0; i < producers.length; i++) {
+            producers[i] = new Thread(() -> {
+                for (int j = 0; j < TASKS / PRODUCERS; j++) {
+                    pool.submit(task);
+                }
+            });
+            producers[i].start();
+        }
+        for (var producer : producers) producer.join();
+        latch.await();
+        bm.stop();
+        System.out.println(description + ": " + bm);
+    }
+}
@@ -0,0 +1,196 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_20;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// solution #24 - token bucket rate limits per pool and per tag
+public class ThreadPool implements TaskPool {
+    /**
+     * What happens to a task that comes in faster than its rate allows.
+     */
+    public enum Overflow {
+        /**
+         * The task waits outside the queue until its token is due, so no
+         * worker is tied up while it waits.
+         */
+        DELAY,
+        /**
+         * submit() throws a RejectedExecutionException.
+         */
+        REJECT
+    }
+
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    // null if the pool as a whole has no rate limit
+    private final TokenBucket poolBucket;
+    private final Map<Object, TokenBucket> tagBuckets = new ConcurrentHashMap<>();
+    private final Overflow overflow;
+    // delayed tasks, which the limiter thread moves into the queue when due
+    private final DelayQueue<DelayedTask> delayed = new DelayQueue<>();
+    private final Thread limiter = new Thread(this::releaseDelayedTasks, "rate-limiter");
+    private final LongAdder delayedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        this(poolSize, null, Overflow.DELAY);
+    }
+
+    /**
+     * @param permitsPerSecond how many tasks per second the pool may start
+     * @param burst            how many tasks may start at once after a
+     *                         quiet period
+     */
+    public ThreadPool(int poolSize, double permitsPerSecond, int burst, Overflow overflow) {
+        this(poolSize, new TokenBucket(permitsPerSecond, burst), overflow);
+    }
+
+    /**
+     * Tasks are only limited per tag, see {@link #setRateLimit}.
+     */
+    public ThreadPool(int poolSize, Overflow overflow) {
+        this(poolSize, null, overflow);
+    }
+
+    private ThreadPool(int poolSize, TokenBucket poolBucket, Overflow overflow) {
+        this.poolBucket = poolBucket;
+        this.overflow = Objects.requireNonNull(overflow, "overflow");
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        limiter.setDaemon(true);
+        limiter.start();
+    }
+
+    private Runnable take() throws InterruptedException {
+        return tasks.take();
+    }
+
+    /**
+     * Limits the tasks submitted with this tag, on top of the limit of the
+     * pool, for example one tag per downstream system.
+     */
+    public void setRateLimit(Object tag, double permitsPerSecond, int burst) {
+        tagBuckets.put(Objects.requireNonNull(tag, "tag"), new TokenBucket(permitsPerSecond, burst));
+    }
+
+    public void submit(Runnable job) {
+        submit(null, job);
+    }
+
+    /**
+     * @throws RejectedExecutionException if the job is over the rate of
+     *                                    the pool or of its tag, and we
+     *                                    reject rather than delay
+     */
+    public void submit(Object tag, Runnable job) {
+        Objects.requireNonNull(job, "job");
+        var tagBucket = tag == null ? null : tagBuckets.get(tag);
+        if (poolBucket == null && tagBucket == null) {
+            tasks.add(job);
+            return;
+        }
+        long now = System.nanoTime();
+        if (overflow == Overflow.REJECT) {
+            if (tagBucket != null && !tagBucket.tryAcquire(now)) {
+                reject(tag);
+            }
+            if (poolBucket != null && !poolBucket.tryAcquire(now)) {
+                if (tagBucket != null) tagBucket.refund();
+                reject(null);
+            }
+            tasks.add(job);
+        } else {
+            long delay = 0;
+            if (tagBucket != null) delay = tagBucket.reserve(now);
+            // the pool token has to be for the time the task is released,
+            // otherwise late tag releases pile up on top of new traffic
+            if (poolBucket != null) delay += poolBucket.reserve(now + delay);
+            if (delay == 0) {
+                tasks.add(job);
+            } else {
+                delayedCount.increment();
+                delayed.add(new DelayedTask(job, now + delay));
+            }
+        }
+    }
+
+    private void reject(Object tag) {
+        rejectedCount.increment();
+        throw new RejectedExecutionException(tag == null ? "Over the rate of the pool"
+            : "Over the rate of tag " + tag);
+    }
+
+    private void releaseDelayedTasks() {
+        while (running) {
+            try {
+                tasks.add(delayed.take().job());
+            } catch (InterruptedException consumeAndExit) {
+                break;
+            }
+        }
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size() + delayed.size();
+    }
+
+    /**
+     * @return the number of tasks that had to wait for a token
+     */
+    public long getDelayedCount() {
+        return delayedCount.sum();
+    }
+
+    /**
+     * @return the number of tasks that were rejected for being over a rate
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public void shutdown() {
+        running = false;
+        limiter.interrupt();
+        workers.forEach(Thread::interrupt);
+    }
+
+    private record DelayedTask(Runnable job, long due) implements Delayed {
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(due - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            // reading the clock for each side could order equal due times
+            // differently from one call to the next
+            if (other instanceof DelayedTask task) return Long.compare(due - task.due, 0);
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS),
+                other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next task from the queue using take()
+                // we then call the run() method on the job
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+    }
+}
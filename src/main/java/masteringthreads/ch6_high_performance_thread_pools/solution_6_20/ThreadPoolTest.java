@@ -0,0 +1,217 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_20;
+
+import org.junit.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testIdleWorkersStopOnShutdown() throws InterruptedException {
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+        var pool = new ThreadPool(3);
+        var latch = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            pool.submit(() -> {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        pool.shutdown();
+        for (var thread : threads) {
+            thread.join(1000);
+            assertFalse("idle worker still waiting", thread.isAlive());
+        }
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testRateLimitedPoolStillRunsConcurrently() throws InterruptedException {
+        // 19 tasks fit into the burst, so the limit must not slow them down
+        checkStandardThreadPoolFunctionality(new ThreadPool(10, 100, 20, ThreadPool.Overflow.DELAY));
+    }
+
+    @Test
+    public void testOverRateTasksAreRejected() throws InterruptedException {
+        var pool = new ThreadPool(2, 10, 5, ThreadPool.Overflow.REJECT);
+        var ran = new LongAdder();
+        int rejected = 0;
+        for (int i = 0; i < 20; i++) {
+            try {
+                pool.submit(ran::increment);
+            } catch (RejectedExecutionException expected) {
+                rejected++;
+            }
+        }
+        assertEquals(15, rejected);
+        assertEquals(15, pool.getRejectedCount());
+        Thread.sleep(100);
+        assertEquals(5, ran.sum());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testTagRejectionDoesNotUseUpPoolTokens() {
+        var pool = new ThreadPool(2, 10, 3, ThreadPool.Overflow.REJECT);
+        pool.setRateLimit("db", 10, 1);
+        pool.submit("db", () -> {});
+        try {
+            pool.submit("db", () -> {});
+            fail("tag is over its rate");
+        } catch (RejectedExecutionException expected) {
+        }
+        // the pool still has two of its three tokens
+        pool.submit(() -> {});
+        pool.submit("other", () -> {});
+        try {
+            pool.submit(() -> {});
+            fail("pool is over its rate");
+        } catch (RejectedExecutionException expected) {
+        }
+        assertEquals(2, pool.getRejectedCount());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testDelayedTasksDoNotTieUpWorkers() throws InterruptedException {
+        var pool = new ThreadPool(2, ThreadPool.Overflow.DELAY);
+        pool.setRateLimit("slow", 10, 1);
+        var slow = new ConcurrentLinkedQueue<Long>();
+        var slowDone = new CountDownLatch(5);
+        long time = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            pool.submit("slow", () -> {
+                slow.add(System.nanoTime());
+                slowDone.countDown();
+            });
+        }
+        var fastDone = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            pool.submit(fastDone::countDown);
+        }
+        assertTrue("untagged tasks were held up",
+            fastDone.await(50, TimeUnit.MILLISECONDS));
+        assertTrue(slowDone.await(1, TimeUnit.SECONDS));
+        time = System.nanoTime() - time;
+        assertEquals(4, pool.getDelayedCount());
+        assertTrue("faster than the rate: " + time, time >= TimeUnit.MILLISECONDS.toNanos(400));
+        long previous = 0;
+        for (long started : slow) {
+            if (previous != 0) assertTrue(started - previous >= TimeUnit.MILLISECONDS.toNanos(80));
+            previous = started;
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSlowTagDoesNotPushPoolOverItsRate() throws InterruptedException {
+        var pool = new ThreadPool(4, 20, 1, ThreadPool.Overflow.DELAY);
+        pool.setRateLimit("slow", 10, 1);
+        var started = new ConcurrentLinkedQueue<Long>();
+        var done = new CountDownLatch(30);
+        Runnable job = () -> {
+            started.add(System.nanoTime());
+            done.countDown();
+        };
+        for (int i = 0; i < 10; i++) {
+            pool.submit("slow", job);
+        }
+        for (int i = 0; i < 20; i++) {
+            pool.submit(job);
+        }
+        assertTrue(done.await(3, TimeUnit.SECONDS));
+        pool.shutdown();
+        // 20 per second allows 10 starts in any 500ms, plus one for the
+        // burst and one for scheduling jitter
+        long window = TimeUnit.MILLISECONDS.toNanos(500);
+        var times = started.stream().sorted().toList();
+        for (int i = 0; i < times.size(); i++) {
+            int inWindow = 0;
+            for (int j = i; j < times.size() && times.get(j) - times.get(i) < window; j++) {
+                inWindow++;
+            }
+            assertTrue("pool rate exceeded: " + inWindow + " starts in 500ms", inWindow <= 12);
+        }
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private volatile Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
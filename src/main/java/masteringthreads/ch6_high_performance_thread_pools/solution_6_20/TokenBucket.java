@@ -0,0 +1,57 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_20;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Lock-free token bucket. Rather than a token count that is topped up by
+ * a timer, we keep a single number: the time at which the bucket will be
+ * full again, also known as the generic cell rate algorithm. Taking a
+ * token pushes that time one interval into the future, and we are over
+ * the rate if it would then be more than a burst ahead of now.
+ */
+final class TokenBucket {
+    private final long intervalNanos;
+    // how far ahead of now the "full again" time may be
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || burst < 1)
+            throw new IllegalArgumentException("permitsPerSecond=" + permitsPerSecond + ", burst=" + burst);
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = (burst - 1) * intervalNanos;
+        this.fullAt = new AtomicLong(System.nanoTime() - intervalNanos);
+    }
+
+    /**
+     * @return true if a token was available right now
+     */
+    boolean tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long start = current - now > 0 ? current : now;
+            if (start - now > toleranceNanos) return false;
+            if (fullAt.compareAndSet(current, start + intervalNanos)) return true;
+        }
+    }
+
+    /**
+     * Takes the next token, even if that lies in the future.
+     *
+     * @return how many nanoseconds the caller has to wait for its token
+     */
+    long reserve(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long start = current - now > 0 ? current : now;
+            if (fullAt.compareAndSet(current, start + intervalNanos))
+                return Math.max(0, start - now - toleranceNanos);
+        }
+    }
+
+    // gives back a token that we took with tryAcquire() but did not use
+    void refund() {
+        fullAt.addAndGet(-intervalNanos);
+    }
+}
@@ -0,0 +1,82 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_20;
+
+import org.junit.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testBurstThenRate() {
+        var bucket = new TokenBucket(10, 5);
+        long now = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertTrue("token " + i + " of the burst", bucket.tryAcquire(now));
+        }
+        assertFalse(bucket.tryAcquire(now));
+        assertFalse(bucket.tryAcquire(now + SECOND / 20));
+        assertTrue(bucket.tryAcquire(now + SECOND / 10));
+        assertFalse(bucket.tryAcquire(now + SECOND / 10));
+    }
+
+    @Test
+    public void testBucketRefillsUpToTheBurst() {
+        var bucket = new TokenBucket(10, 3);
+        long now = System.nanoTime();
+        while (bucket.tryAcquire(now)) ;
+        // after a long quiet period we only get the burst, not ten minutes' worth
+        long later = now + 600 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire(later));
+        }
+        assertFalse(bucket.tryAcquire(later));
+    }
+
+    @Test
+    public void testReserveSpacesOutTheDelays() {
+        var bucket = new TokenBucket(10, 2);
+        long now = System.nanoTime();
+        assertEquals(0, bucket.reserve(now));
+        assertEquals(0, bucket.reserve(now));
+        assertEquals(SECOND / 10, bucket.reserve(now));
+        assertEquals(2 * SECOND / 10, bucket.reserve(now));
+        assertFalse(bucket.tryAcquire(now));
+    }
+
+    @Test
+    public void testRefund() {
+        var bucket = new TokenBucket(10, 1);
+        long now = System.nanoTime();
+        assertTrue(bucket.tryAcquire(now));
+        assertFalse(bucket.tryAcquire(now));
+        bucket.refund();
+        assertTrue(bucket.tryAcquire(now));
+    }
+
+    @Test
+    public void testNoTokensAreLostUnderContention() throws InterruptedException {
+        var bucket = new TokenBucket(1, 1000);
+        long now = System.nanoTime();
+        var acquired = new LongAdder();
+        var threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (bucket.tryAcquire(now)) acquired.increment();
+                }
+            });
+            threads[i].start();
+        }
+        for (var thread : threads) thread.join();
+        assertEquals(1000, acquired.sum());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRateMustBePositive() {
+        new TokenBucket(0, 1);
+    }
+}
@@ -0,0 +1,67 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_21;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// solution #25 - pluggable thread factory with a low-footprint mode
+public class ThreadPool implements TaskPool {
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final Collection<Thread> workers = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        this(poolSize, WorkerThreads.standard());
+    }
+
+    /**
+     * @param threadFactory creates the worker threads, and so decides
+     *                      their names, stack size, daemon flag and
+     *                      uncaught exception handler
+     */
+    public ThreadPool(int poolSize, ThreadFactory threadFactory) {
+        Objects.requireNonNull(threadFactory, "threadFactory");
+        for (int i = 0; i < poolSize; i++) {
+            var thread = threadFactory.newThread(new Worker());
+            // none of the workers has been started yet, so there is
+            // nothing to clean up
+            if (thread == null)
+                throw new IllegalStateException("threadFactory did not create worker " + i);
+            workers.add(thread);
+        }
+        workers.forEach(Thread::start);
+    }
+
+    private Runnable take() throws InterruptedException {
+        return tasks.take();
+    }
+
+    public void submit(Runnable job) {
+        tasks.add(job);
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private class Worker implements Runnable {
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next task from the queue using take()
+                // we then call the run() method on the job
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_21;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// resident and reserved memory per blocked worker for each WorkerThreads
+// mode; Linux only, since we read /proc/self/status
+public class ThreadPoolFootprint {
+    private static final List<String> MODES = List.of("standard", "lowFootprint", "virtual");
+
+    public static void main(String... args) throws Exception {
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        if (args.length > 1) {
+            measure(workers, args[1]);
+            return;
+        }
+        // memory that one mode gave back would be reused by the next, so
+        // every mode gets a JVM of its own
+        var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        for (var mode : MODES) {
+            new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ThreadPoolFootprint.class.getName(), String.valueOf(workers), mode)
+                .inheritIO().start().waitFor();
+        }
+    }
+
+    private static void measure(int workers, String mode) throws Exception {
+        var factory = switch (mode) {
+            case "standard" -> WorkerThreads.standard();
+            case "lowFootprint" -> WorkerThreads.lowFootprint();
+            case "virtual" -> WorkerThreads.virtual();
+            default -> throw new IllegalArgumentException("mode should be one of " + MODES);
+        };
+        var before = status();
+        var pool = new ThreadPool(workers, factory);
+        // every worker runs one task that blocks, like a pool full of
+        // threads that wait for a database or a remote service
+        var started = new CountDownLatch(workers);
+        var release = new CountDownLatch(1);
+        for (int i = 0; i < workers; i++) {
+            pool.submit(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        started.await();
+        var after = status();
+        System.out.printf("%-12s %d workers: RSS %.1f kB, reserved %.1f kB per worker%n",
+            mode, workers,
+            (after.get("VmRSS") - before.get("VmRSS")) / (double) workers,
+            (after.get("VmSize") - before.get("VmSize")) / (double) workers);
+        release.countDown();
+        pool.shutdown();
+    }
+
+    private static Map<String, Long> status() throws IOException {
+        var result = new HashMap<String, Long>();
+        for (var line : Files.readAllLines(Path.of("/proc/self/status"))) {
+            if (line.startsWith("VmRSS:") || line.startsWith("VmSize:")) {
+                result.put(line.substring(0, line.indexOf(':')),
+                    Long.parseLong(line.replaceAll("\\D", "")));
+            }
+        }
+        return result;
+    }
+}
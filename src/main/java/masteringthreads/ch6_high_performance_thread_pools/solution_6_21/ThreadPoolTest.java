@@ -0,0 +1,189 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_21;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testIdleWorkersStopOnShutdown() throws InterruptedException {
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+        var pool = new ThreadPool(3);
+        var latch = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            pool.submit(() -> {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        pool.shutdown();
+        for (var thread : threads) {
+            thread.join(1000);
+            assertFalse("idle worker still waiting", thread.isAlive());
+        }
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testLowFootprintWorkers() throws InterruptedException {
+        var pool = new ThreadPool(10, WorkerThreads.lowFootprint());
+        var latch = new CountDownLatch(1);
+        var worker = new AtomicReference<Thread>();
+        pool.submit(() -> {
+            worker.set(Thread.currentThread());
+            latch.countDown();
+        });
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(worker.get().isDaemon());
+        assertTrue(worker.get().getName().startsWith("worker-"));
+        checkStandardThreadPoolFunctionality(pool);
+    }
+
+    @Test
+    public void testVirtualWorkers() throws InterruptedException {
+        var pool = new ThreadPool(10, WorkerThreads.virtual());
+        var virtual = new CountDownLatch(1);
+        pool.submit(() -> {
+            if (Thread.currentThread().isVirtual()) virtual.countDown();
+        });
+        assertTrue(virtual.await(1, TimeUnit.SECONDS));
+        checkStandardThreadPoolFunctionality(pool);
+    }
+
+    @Test
+    public void testThreadFactoryDecidesNameAndExceptionHandler() throws InterruptedException {
+        var failures = new ConcurrentLinkedQueue<Throwable>();
+        var died = new CountDownLatch(1);
+        var factory = Thread.ofPlatform().name("db-", 0)
+            .uncaughtExceptionHandler((thread, failure) -> {
+                failures.add(failure);
+                died.countDown();
+            })
+            .factory();
+        var pool = new ThreadPool(2, factory);
+        var names = ConcurrentHashMap.<String>newKeySet();
+        var latch = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            pool.submit(() -> {
+                names.add(Thread.currentThread().getName());
+                latch.countDown();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(Set.of("db-0", "db-1"), names);
+        pool.submit(() -> {
+            throw new IllegalStateException("expected in test");
+        });
+        assertTrue(died.await(1, TimeUnit.SECONDS));
+        assertTrue(failures.peek() instanceof IllegalStateException);
+        pool.shutdown();
+    }
+
+    @Test
+    public void testThreadFactoryThatRefuses() {
+        var created = new ArrayList<Thread>();
+        ThreadFactory factory = job -> {
+            if (created.size() == 2) return null;
+            var thread = new Thread(job);
+            created.add(thread);
+            return thread;
+        };
+        try {
+            new ThreadPool(3, factory);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+        // we do not leave half a pool running
+        for (var thread : created) {
+            assertEquals(Thread.State.NEW, thread.getState());
+        }
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private volatile Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
@@ -0,0 +1,64 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_21;
+
+import java.util.concurrent.*;
+
+/**
+ * Ready-made thread factories for the ThreadPool. Any ThreadFactory will
+ * do, and Thread.ofPlatform() already lets us choose the name, stack
+ * size, daemon flag and uncaught exception handler, for example
+ * <pre>
+ * Thread.ofPlatform().name("db-", 0).stackSize(512 * 1024)
+ *     .uncaughtExceptionHandler(handler).factory()
+ * </pre>
+ */
+public final class WorkerThreads {
+    /**
+     * Stack size that we ask for in the low-footprint mode. The JVM will
+     * not go below 136k on Linux x64, since it needs room for its guard
+     * and shadow pages, and our workers only need a few frames on top of
+     * whatever the tasks do.
+     */
+    public static final long SMALL_STACK_SIZE = 256 * 1024;
+
+    private WorkerThreads() {}
+
+    /**
+     * Threads named "worker-0", "worker-1", ... with the default stack
+     * size of the JVM (-Xss, 1 MB on Linux x64).
+     */
+    public static ThreadFactory standard() {
+        return Thread.ofPlatform().name("worker-", 0).factory();
+    }
+
+    /**
+     * Daemon threads with a {@link #SMALL_STACK_SIZE} stack, so the pool
+     * does not keep the JVM alive; use Thread.ofPlatform() directly for
+     * non-daemon workers with a small stack. This is meant for pools with
+     * thousands of mostly blocked platform workers, where native memory
+     * limits the pool size. Every worker reserves a quarter of the default
+     * 1 MB stack in the address space (VmSize), which is what runs out
+     * first under a ulimit -v or a strict overcommit policy. Their resident
+     * memory (VmRSS) hardly changes, since Linux only backs the stack pages
+     * that are touched; ThreadPoolFootprint measured 50-65 kB per blocked
+     * worker in both modes, while the reservation went down from 1 MB to
+     * 257 kB per worker. Deeply recursive tasks get a StackOverflowError
+     * sooner, so only use this for shallow tasks.
+     */
+    public static ThreadFactory lowFootprint() {
+        return Thread.ofPlatform().name("worker-", 0)
+            .stackSize(SMALL_STACK_SIZE)
+            .daemon(true)
+            .factory();
+    }
+
+    /**
+     * Virtual workers, which unmount from their carrier thread when they
+     * block in take() or in a task, and keep their stack on the heap in
+     * the meantime. This is the mode that cuts the resident memory, to
+     * around 5 kB per blocked worker. Tasks that block inside synchronized
+     * pin their carrier thread though (see solution_6_5).
+     */
+    public static ThreadFactory virtual() {
+        return Thread.ofVirtual().name("worker-", 0).factory();
+    }
+}
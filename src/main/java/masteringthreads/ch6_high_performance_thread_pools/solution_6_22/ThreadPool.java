@@ -0,0 +1,160 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_22;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// solution #26 - coalescing duplicate pending tasks by key
+public class ThreadPool implements TaskPool {
+    /**
+     * What submitCoalesced() does when a task with the same key is still
+     * waiting in the queue.
+     */
+    public enum Coalesce {
+        /**
+         * The queued task stays and the new one is dropped.
+         */
+        KEEP_QUEUED,
+        /**
+         * The new task takes the place of the queued one, so it runs
+         * where the queued one would have run.
+         */
+        REPLACE
+    }
+
+    // marks a Pending whose job a worker has already taken
+    private static final Runnable TAKEN = () -> {};
+
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    // the queued, not yet started, task for every key
+    private final Map<Object, Pending> pending = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    private Runnable take() throws InterruptedException {
+        return tasks.take();
+    }
+
+    public void submit(Runnable job) {
+        tasks.add(job);
+    }
+
+    /**
+     * Same as submitCoalesced(key, job, Coalesce.REPLACE).
+     */
+    public boolean submitCoalesced(Object key, Runnable job) {
+        return submitCoalesced(key, job, Coalesce.REPLACE);
+    }
+
+    /**
+     * Submits the job, unless a task with an equal key is still waiting
+     * in the queue, in which case we either drop the job or put it in
+     * the place of the queued one. Either way, there is never more than
+     * one pending task per key, although another one may be running.
+     * Since the queued task has not started yet, it will still see
+     * everything that happened before this call.
+     *
+     * @return true if the job was added to the queue, false if it was
+     * coalesced with a task that was already there
+     */
+    public boolean submitCoalesced(Object key, Runnable job, Coalesce coalesce) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(job, "job");
+        Objects.requireNonNull(coalesce, "coalesce");
+        while (true) {
+            var queued = pending.get(key);
+            if (queued != null) {
+                if (queued.coalesce(job, coalesce)) {
+                    coalesced.increment();
+                    return false;
+                }
+                // a worker has just taken it, so it will soon be gone
+                // from the map and we can queue a fresh one
+                Thread.onSpinWait();
+                continue;
+            }
+            var fresh = new Pending(key, job);
+            if (pending.putIfAbsent(key, fresh) == null) {
+                tasks.add(fresh);
+                return true;
+            }
+        }
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    /**
+     * @return the number of submissions that were dropped or that
+     * replaced a queued task with the same key
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private final class Pending implements Runnable {
+        private final Object key;
+        private final AtomicReference<Runnable> job;
+
+        private Pending(Object key, Runnable job) {
+            this.key = key;
+            this.job = new AtomicReference<>(job);
+        }
+
+        /**
+         * @return false if a worker has already taken the job
+         */
+        private boolean coalesce(Runnable next, Coalesce coalesce) {
+            while (true) {
+                var current = job.get();
+                if (current == TAKEN) return false;
+                if (coalesce == Coalesce.KEEP_QUEUED) return true;
+                if (job.compareAndSet(current, next)) return true;
+            }
+        }
+
+        public void run() {
+            // we leave the map before we take the job, so that a submitter
+            // who still sees us either gets its job run by us, or finds
+            // TAKEN and then no longer finds us in the map
+            pending.remove(key, this);
+            job.getAndSet(TAKEN).run();
+        }
+    }
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next task from the queue using take()
+                // we then call the run() method on the job
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+    }
+}
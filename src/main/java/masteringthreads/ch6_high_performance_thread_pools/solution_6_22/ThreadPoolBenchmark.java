@@ -0,0 +1,44 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_22;
+
+import masteringthreads.util.*;
+
+import java.util.concurrent.atomic.*;
+
+// an invalidation storm: a million refreshes for a thousand keys, with
+// and without coalescing
+public class ThreadPoolBenchmark {
+    private static final int POOL_SIZE = 4;
+    private static final int SUBMISSIONS = 1_000_000;
+    private static final int KEYS = 1_000;
+
+    public static void main(String... args) throws InterruptedException {
+        for (int run = 0; run < 5; run++) {
+            storm("submit", false);
+            storm("submitCoalesced", true);
+        }
+    }
+
+    private static void storm(String name, boolean coalesce) throws InterruptedException {
+        var pool = new ThreadPool(POOL_SIZE);
+        var refreshes = new LongAdder();
+        int maxQueueLength = 0;
+        var bm = new Benchmark();
+        bm.start();
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            Runnable refresh = () -> {
+                refreshes.increment();
+                // a cache refresh does a little bit of work
+                long until = System.nanoTime() + 2_000;
+                while (System.nanoTime() < until) Thread.onSpinWait();
+            };
+            if (coalesce) pool.submitCoalesced(i % KEYS, refresh);
+            else pool.submit(refresh);
+            if (i % 1000 == 0) maxQueueLength = Math.max(maxQueueLength, pool.getRunQueueLength());
+        }
+        while (pool.getRunQueueLength() > 0) Thread.sleep(1);
+        bm.stop();
+        pool.shutdown();
+        System.out.println(name + ": " + bm + ", maxQueueLength=" + maxQueueLength
+            + ", refreshes=" + refreshes.sum() + ", coalesced=" + pool.getCoalescedCount());
+    }
+}
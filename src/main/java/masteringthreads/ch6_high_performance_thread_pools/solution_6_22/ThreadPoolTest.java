@@ -0,0 +1,214 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_22;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testIdleWorkersStopOnShutdown() throws InterruptedException {
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+        var pool = new ThreadPool(3);
+        var latch = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            pool.submit(() -> {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        pool.shutdown();
+        for (var thread : threads) {
+            thread.join(1000);
+            assertFalse("idle worker still waiting", thread.isAlive());
+        }
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testQueuedDuplicatesAreReplaced() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var blocker = blockWorker(pool);
+        var ran = new ConcurrentLinkedQueue<String>();
+        assertTrue(pool.submitCoalesced("a", () -> ran.add("a1")));
+        assertFalse(pool.submitCoalesced("a", () -> ran.add("a2")));
+        assertTrue(pool.submitCoalesced("b", () -> ran.add("b1")));
+        assertFalse(pool.submitCoalesced("a", () -> ran.add("a3")));
+        assertEquals(2, pool.getRunQueueLength());
+        assertEquals(2, pool.getCoalescedCount());
+        blocker.countDown();
+        Thread.sleep(100);
+        assertEquals(List.of("a3", "b1"), List.copyOf(ran));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testQueuedDuplicatesAreKept() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var blocker = blockWorker(pool);
+        var ran = new ConcurrentLinkedQueue<String>();
+        assertTrue(pool.submitCoalesced("a", () -> ran.add("a1"), ThreadPool.Coalesce.KEEP_QUEUED));
+        assertFalse(pool.submitCoalesced("a", () -> ran.add("a2"), ThreadPool.Coalesce.KEEP_QUEUED));
+        assertEquals(1, pool.getRunQueueLength());
+        blocker.countDown();
+        Thread.sleep(100);
+        assertEquals(List.of("a1"), List.copyOf(ran));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testRunningTaskDoesNotAbsorbNewSubmissions() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var running = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var runs = new AtomicInteger();
+        pool.submitCoalesced("a", () -> {
+            runs.incrementAndGet();
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+        // the first copy is already running and might have missed whatever
+        // made us submit again, so this one has to be queued
+        assertTrue(pool.submitCoalesced("a", runs::incrementAndGet));
+        release.countDown();
+        Thread.sleep(100);
+        assertEquals(2, runs.get());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testLatestSubmissionAlwaysRuns() throws InterruptedException {
+        var pool = new ThreadPool(4);
+        int keys = 100;
+        var submitted = new AtomicLongArray(keys);
+        var ran = new AtomicLongArray(keys);
+        var submitters = new Thread[4];
+        for (int t = 0; t < submitters.length; t++) {
+            int first = t;
+            submitters[t] = new Thread(() -> {
+                for (long version = 1; version <= 20_000; version++) {
+                    // every key has one submitter, so versions go up
+                    for (int key = first; key < keys; key += submitters.length) {
+                        int k = key;
+                        long v = version;
+                        submitted.set(k, v);
+                        pool.submitCoalesced(k, () -> ran.accumulateAndGet(k, v, Math::max));
+                    }
+                }
+            });
+            submitters[t].start();
+        }
+        for (var submitter : submitters) submitter.join();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (int key = 0; key < keys; key++) {
+            while (ran.get(key) != submitted.get(key) && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals("key " + key, submitted.get(key), ran.get(key));
+        }
+        assertTrue(pool.getCoalescedCount() > 0);
+        pool.shutdown();
+    }
+
+    private CountDownLatch blockWorker(ThreadPool pool) throws InterruptedException {
+        var started = new CountDownLatch(1);
+        var blocker = new CountDownLatch(1);
+        pool.submit(() -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private volatile Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
@@ -0,0 +1,217 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_23;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// solution #27 - CoDel admission control on the time tasks spend queued
+public class ThreadPool implements TaskPool {
+    /**
+     * What we do with work while the pool is overloaded, that is, while
+     * tasks have waited longer than the target for a whole interval.
+     */
+    public enum Overload {
+        /**
+         * Tasks that have waited more than twice the target are dropped
+         * when a worker takes them, instead of being run late.
+         */
+        SHED,
+        /**
+         * submit() throws a RejectedExecutionException right away, so
+         * that the caller can back off or go elsewhere.
+         */
+        REJECT
+    }
+
+    private final BlockingQueue<QueuedTask> tasks = new LinkedBlockingQueue<>();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    private final Collection<Listener> listeners = new CopyOnWriteArraySet<>();
+    // all zero if admission control is off
+    private final long targetNanos;
+    private final long intervalNanos;
+    private final Overload overload;
+    // the end of the current interval and the shortest sojourn time that
+    // we have seen in it, which have to change together
+    private final AtomicReference<Interval> interval;
+    private volatile boolean overloaded;
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        this(poolSize, 0, 0, TimeUnit.NANOSECONDS, Overload.SHED);
+    }
+
+    /**
+     * Admission control is on if target and interval are both positive,
+     * and off if they are both 0. Unlike CoDel, which drops at intervals
+     * that shrink with the square root of the number of drops, we shed
+     * every task that has waited more than a fixed twice the target while
+     * the pool is overloaded.
+     *
+     * @param target   how long tasks may wait in the queue, for example
+     *                 5ms; a queue that never drains below this is a
+     *                 standing queue that only adds latency
+     * @param interval how long the shortest wait has to stay above the
+     *                 target before we call the pool overloaded, for
+     *                 example 100ms, so that a short burst gets through
+     */
+    public ThreadPool(int poolSize, long target, long interval, TimeUnit unit, Overload overload) {
+        // with only an interval, any wait at all would count as overload
+        if (target < 0 || interval < 0 || (target == 0) != (interval == 0))
+            throw new IllegalArgumentException("target=" + target + ", interval=" + interval);
+        this.targetNanos = unit.toNanos(target);
+        this.intervalNanos = unit.toNanos(interval);
+        this.overload = Objects.requireNonNull(overload, "overload");
+        this.interval = new AtomicReference<>(new Interval(System.nanoTime() + intervalNanos, Long.MAX_VALUE));
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    private Runnable take() throws InterruptedException {
+        while (true) {
+            var task = next();
+            if (!isAdmissionControlled()) return task.job();
+            long now = System.nanoTime();
+            long sojourn = now - task.enqueued();
+            if (admit(now, sojourn)) return task.job();
+            shed.increment();
+            for (var listener : listeners) {
+                try {
+                    listener.shed(task.job(), sojourn);
+                } catch (RuntimeException e) {
+                    // a broken listener must not cost us the worker
+                    var thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+        }
+    }
+
+    private QueuedTask next() throws InterruptedException {
+        var task = tasks.poll();
+        if (task != null) return task;
+        // an empty queue is not a standing queue
+        overloaded = false;
+        return tasks.take();
+    }
+
+    /**
+     * The CoDel part: we track the shortest sojourn time per interval,
+     * since that is how long the queue takes to drain even at its best.
+     * If it is above the target at the end of an interval, the pool is
+     * overloaded for the next interval.
+     *
+     * @return false if this task should be shed
+     */
+    private boolean admit(long now, long sojourn) {
+        while (true) {
+            var current = interval.get();
+            if (now - current.end() >= 0) {
+                // we close the interval and our sojourn opens the next one;
+                // if nobody took a task during the interval, ours counts
+                if (interval.compareAndSet(current, new Interval(now + intervalNanos, sojourn))) {
+                    overloaded = Math.min(current.minSojourn(), sojourn) > targetNanos;
+                    break;
+                }
+            } else if (sojourn >= current.minSojourn()
+                || interval.compareAndSet(current, new Interval(current.end(), sojourn))) {
+                break;
+            }
+        }
+        return overload != Overload.SHED || !overloaded || sojourn <= 2 * targetNanos;
+    }
+
+    private boolean isAdmissionControlled() {
+        return targetNanos > 0;
+    }
+
+    /**
+     * @throws RejectedExecutionException if the pool is overloaded and
+     *                                    rejects rather than sheds
+     */
+    public void submit(Runnable job) {
+        Objects.requireNonNull(job, "job");
+        if (overload == Overload.REJECT && overloaded) {
+            rejected.increment();
+            throw new RejectedExecutionException("Overloaded, tasks are queued for longer than "
+                + TimeUnit.NANOSECONDS.toMillis(targetNanos) + "ms");
+        }
+        tasks.add(new QueuedTask(job, System.nanoTime()));
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    /**
+     * @return true if the shortest time that tasks spent in the queue
+     * during the last interval was above the target
+     */
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * @return the number of queued tasks that were dropped without running
+     */
+    public long getShedCount() {
+        return shed.sum();
+    }
+
+    /**
+     * @return the number of tasks that submit() turned away
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public boolean addListener(Listener l) {
+        return listeners.add(l);
+    }
+
+    public boolean removeListener(Listener l) {
+        return listeners.remove(l);
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * This is called by the worker that dropped a task, for example to
+     * send an "overloaded" reply to whoever is waiting for it.
+     */
+    public interface Listener {
+        void shed(Runnable job, long sojournNanos);
+    }
+
+    private record QueuedTask(Runnable job, long enqueued) {}
+
+    private record Interval(long end, long minSojourn) {}
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next task from the queue using take()
+                // we then call the run() method on the job
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_23;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+// three seconds of sustained overload, tasks arrive 1.5 times as fast as
+// the pool can run them; we look at how long the tasks that did run waited
+public class ThreadPoolBenchmark {
+    private static final int POOL_SIZE = 2;
+    private static final long TASK_MILLIS = 2;
+    private static final long ARRIVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(TASK_MILLIS) / POOL_SIZE * 2 / 3;
+    private static final long DURATION_NANOS = TimeUnit.SECONDS.toNanos(3);
+
+    public static void main(String... args) throws InterruptedException {
+        for (int run = 0; run < 3; run++) {
+            overload("FIFO", new ThreadPool(POOL_SIZE));
+            overload("CoDel SHED", new ThreadPool(POOL_SIZE, 5, 100, TimeUnit.MILLISECONDS, ThreadPool.Overload.SHED));
+            overload("CoDel REJECT", new ThreadPool(POOL_SIZE, 5, 100, TimeUnit.MILLISECONDS, ThreadPool.Overload.REJECT));
+        }
+    }
+
+    private static void overload(String name, ThreadPool pool) throws InterruptedException {
+        var sojourns = new ConcurrentLinkedQueue<Long>();
+        long start = System.nanoTime();
+        long next = start;
+        while (next - start < DURATION_NANOS) {
+            long submitted = System.nanoTime();
+            try {
+                pool.submit(() -> {
+                    sojourns.add(System.nanoTime() - submitted);
+                    try {
+                        Thread.sleep(TASK_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (RejectedExecutionException ignored) {
+            }
+            next += ARRIVAL_NANOS;
+            LockSupport.parkNanos(next - System.nanoTime());
+        }
+        // whatever is still queued would have waited even longer
+        int leftOver = pool.getRunQueueLength();
+        pool.shutdown();
+        var sorted = sojourns.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%-12s ran=%d shed=%d rejected=%d leftOver=%d sojourn p50=%dms p99=%dms max=%dms%n",
+            name, sorted.length, pool.getShedCount(), pool.getRejectedCount(), leftOver,
+            millis(sorted, 0.5), millis(sorted, 0.99), millis(sorted, 1));
+    }
+
+    private static long millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int index = Math.min(sorted.length - 1, (int) (sorted.length * percentile));
+        return TimeUnit.NANOSECONDS.toMillis(sorted[index]);
+    }
+}
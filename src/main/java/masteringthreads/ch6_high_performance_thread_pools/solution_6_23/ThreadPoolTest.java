@@ -0,0 +1,238 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_23;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testIdleWorkersStopOnShutdown() throws InterruptedException {
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+        var pool = new ThreadPool(3);
+        var latch = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            pool.submit(() -> {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        pool.shutdown();
+        for (var thread : threads) {
+            thread.join(1000);
+            assertFalse("idle worker still waiting", thread.isAlive());
+        }
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testTargetAndIntervalGoTogether() {
+        for (long[] args : new long[][]{{0, 100}, {5, 0}}) {
+            try {
+                new ThreadPool(1, args[0], args[1], TimeUnit.MILLISECONDS, ThreadPool.Overload.SHED);
+                fail("expected IllegalArgumentException for " + Arrays.toString(args));
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testShortBurstIsNotOverload() throws InterruptedException {
+        // the burst of 9 tasks waits a second, but the queue drains before
+        // a whole interval is over, so nothing is shed
+        var pool = new ThreadPool(10, 5, 2000, TimeUnit.MILLISECONDS, ThreadPool.Overload.SHED);
+        checkStandardThreadPoolFunctionality(pool);
+        assertEquals(0, pool.getShedCount());
+    }
+
+    @Test
+    public void testStandingQueueIsRejected() throws InterruptedException {
+        var pool = new ThreadPool(1, 5, 50, TimeUnit.MILLISECONDS, ThreadPool.Overload.REJECT);
+        var ran = new LongAdder();
+        for (int i = 0; i < 100; i++) {
+            pool.submit(() -> {
+                sleep(5);
+                ran.increment();
+            });
+        }
+        Thread.sleep(200);
+        assertTrue(pool.isOverloaded());
+        try {
+            pool.submit(ran::increment);
+            fail("expected RejectedExecutionException");
+        } catch (RejectedExecutionException expected) {
+        }
+        assertEquals(1, pool.getRejectedCount());
+        // once the queue has drained, we accept work again
+        while (pool.getRunQueueLength() > 0) Thread.sleep(10);
+        Thread.sleep(50);
+        assertFalse(pool.isOverloaded());
+        pool.submit(ran::increment);
+        Thread.sleep(50);
+        assertEquals(101, ran.sum());
+        assertEquals(0, pool.getShedCount());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testStandingQueueIsShed() throws InterruptedException {
+        var pool = new ThreadPool(1, 5, 50, TimeUnit.MILLISECONDS, ThreadPool.Overload.SHED);
+        var sojourns = new ConcurrentLinkedQueue<Long>();
+        pool.addListener((job, sojournNanos) -> sojourns.add(sojournNanos));
+        var ran = new LongAdder();
+        long time = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            pool.submit(() -> {
+                sleep(5);
+                ran.increment();
+            });
+        }
+        while (ran.sum() + pool.getShedCount() < 100) Thread.sleep(10);
+        time = System.nanoTime() - time;
+        assertTrue("nothing was shed", pool.getShedCount() > 0);
+        assertEquals(pool.getShedCount(), sojourns.size());
+        assertTrue(sojourns.stream().allMatch(sojourn -> sojourn > TimeUnit.MILLISECONDS.toNanos(10)));
+        assertTrue("took " + time, time < TimeUnit.MILLISECONDS.toNanos(400));
+        // the pool itself stays usable
+        pool.submit(ran::increment);
+        Thread.sleep(50);
+        assertEquals(101, ran.sum() + pool.getShedCount());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testFailingListenerDoesNotKillTheWorker() throws InterruptedException {
+        var reported = new LongAdder();
+        var defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((t, e) -> reported.increment());
+        try {
+            var pool = new ThreadPool(1, 5, 50, TimeUnit.MILLISECONDS, ThreadPool.Overload.SHED);
+            pool.addListener((job, sojournNanos) -> {
+                throw new IllegalStateException("expected in test");
+            });
+            var ran = new LongAdder();
+            for (int i = 0; i < 100; i++) {
+                pool.submit(() -> {
+                    sleep(5);
+                    ran.increment();
+                });
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (ran.sum() + pool.getShedCount() < 100 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(100, ran.sum() + pool.getShedCount());
+            assertTrue(pool.getShedCount() > 0);
+            assertEquals(pool.getShedCount(), reported.sum());
+            pool.shutdown();
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(defaultHandler);
+        }
+    }
+
+    @Test
+    public void testWithoutAdmissionControlNothingIsShed() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var ran = new CountDownLatch(50);
+        for (int i = 0; i < 50; i++) {
+            pool.submit(() -> {
+                sleep(5);
+                ran.countDown();
+            });
+        }
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertEquals(0, pool.getShedCount());
+        assertFalse(pool.isOverloaded());
+        pool.shutdown();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private volatile Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
@@ -0,0 +1,103 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_24;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Priority queue ordered by deadline, split into stripes that each have
+ * their own heap and lock, so that submitters and workers mostly lock
+ * different stripes. Every stripe publishes its current head in a
+ * volatile field, and take() picks the stripe with the earliest head
+ * without locking the others. While tasks are being added, a worker may
+ * thus take a task just before an earlier one has been published, so
+ * the order is earliest deadline first only up to those races.
+ */
+final class DeadlineQueue {
+    private final Stripe[] stripes;
+    // one permit for every task in the queue
+    private final Semaphore available = new Semaphore(0);
+    // ties are broken in submission order, so equal deadlines are FIFO
+    private final AtomicLong sequence = new AtomicLong();
+
+    DeadlineQueue(int stripes) {
+        if (stripes < 1) throw new IllegalArgumentException("stripes=" + stripes);
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    void add(Runnable job, long deadline, long runTime) {
+        var entry = new Entry(job, deadline, runTime, sequence.getAndIncrement());
+        // any stripe will do, so we take the first one that is not locked
+        int start = ThreadLocalRandom.current().nextInt(stripes.length);
+        Stripe stripe = null;
+        for (int i = 0; i < stripes.length && stripe == null; i++) {
+            var candidate = stripes[(start + i) % stripes.length];
+            if (candidate.lock.tryLock()) stripe = candidate;
+        }
+        if (stripe == null) {
+            stripe = stripes[start];
+            stripe.lock.lock();
+        }
+        try {
+            stripe.heap.add(entry);
+            stripe.head = stripe.heap.peek();
+        } finally {
+            stripe.lock.unlock();
+        }
+        available.release();
+    }
+
+    Entry take() throws InterruptedException {
+        available.acquire();
+        // our permit means that there is an entry for us, but we might
+        // have to look more than once while others take theirs
+        while (true) {
+            Stripe earliest = null;
+            Entry earliestHead = null;
+            for (var stripe : stripes) {
+                var head = stripe.head;
+                if (head != null && (earliestHead == null || head.compareTo(earliestHead) < 0)) {
+                    earliest = stripe;
+                    earliestHead = head;
+                }
+            }
+            if (earliest != null) {
+                var entry = earliest.poll();
+                if (entry != null) return entry;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    int size() {
+        return available.availablePermits();
+    }
+
+    record Entry(Runnable job, long deadline, long runTime, long sequence) implements Comparable<Entry> {
+        public int compareTo(Entry other) {
+            int result = Long.compare(deadline, other.deadline);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final class Stripe {
+        private final Lock lock = new ReentrantLock();
+        private final PriorityQueue<Entry> heap = new PriorityQueue<>();
+        private volatile Entry head;
+
+        private Entry poll() {
+            lock.lock();
+            try {
+                var entry = heap.poll();
+                head = heap.peek();
+                return entry;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
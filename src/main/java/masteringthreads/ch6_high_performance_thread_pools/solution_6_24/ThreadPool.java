@@ -0,0 +1,150 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_24;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// solution #28 - earliest deadline first, tasks that cannot make it are dropped
+public class ThreadPool implements TaskPool {
+    private final DeadlineQueue tasks;
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    private final Collection<Listener> listeners = new CopyOnWriteArraySet<>();
+    // deadlines are kept relative to this, so that they can be compared
+    // with Long.compare() and tasks without a deadline get Long.MAX_VALUE
+    private final long origin = System.nanoTime();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        this(poolSize, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripes how many separately locked heaps the queue is split
+     *                into; more stripes mean less contention, but take()
+     *                has more heads to look at
+     */
+    public ThreadPool(int poolSize, int stripes) {
+        tasks = new DeadlineQueue(stripes);
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    private Runnable take() throws InterruptedException {
+        while (true) {
+            var task = tasks.take();
+            long late = now() + task.runTime() - task.deadline();
+            if (task.deadline() == Long.MAX_VALUE || late <= 0) return task.job();
+            // it would finish after its deadline, so we rather spend the
+            // time on a task that can still make it
+            dropped.increment();
+            for (var listener : listeners) {
+                try {
+                    listener.dropped(task.job(), late);
+                } catch (RuntimeException e) {
+                    // a broken listener must not cost us the worker
+                    var thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+        }
+    }
+
+    private long now() {
+        return System.nanoTime() - origin;
+    }
+
+    /**
+     * Tasks without a deadline run after all tasks with one, in the
+     * order in which they were submitted.
+     */
+    public void submit(Runnable job) {
+        Objects.requireNonNull(job, "job");
+        tasks.add(job, Long.MAX_VALUE, 0);
+    }
+
+    /**
+     * Same as submit(job, timeout, 0, unit).
+     */
+    public void submit(Runnable job, long timeout, TimeUnit unit) {
+        submit(job, timeout, 0, unit);
+    }
+
+    /**
+     * Workers always take the task with the earliest deadline. A task is
+     * dropped instead of run if it could not finish in time anymore.
+     *
+     * @param timeout how long from now the task has to be finished
+     * @param runTime how long we expect the task to run, or 0 if we only
+     *                want to drop tasks whose deadline has passed
+     */
+    public void submit(Runnable job, long timeout, long runTime, TimeUnit unit) {
+        Objects.requireNonNull(job, "job");
+        if (timeout < 0 || runTime < 0)
+            throw new IllegalArgumentException("timeout=" + timeout + ", runTime=" + runTime);
+        long deadline = now() + unit.toNanos(timeout);
+        // a deadline centuries away is the same as none
+        if (deadline < 0) deadline = Long.MAX_VALUE;
+        tasks.add(job, deadline, unit.toNanos(runTime));
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    /**
+     * @return the number of tasks that were dropped because they could
+     * not make their deadline anymore
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public boolean addListener(Listener l) {
+        return listeners.add(l);
+    }
+
+    public boolean removeListener(Listener l) {
+        return listeners.remove(l);
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * This is called by the worker that dropped a task.
+     */
+    public interface Listener {
+        /**
+         * @param lateNanos by how much the task would have missed its
+         *                  deadline if we had run it now
+         */
+        void dropped(Runnable job, long lateNanos);
+    }
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next task from the queue using take()
+                // we then call the run() method on the job
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+    }
+}
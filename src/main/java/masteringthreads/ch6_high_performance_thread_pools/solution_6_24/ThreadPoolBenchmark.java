@@ -0,0 +1,53 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_24;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// mixed SLA traffic at 90% load: every 100ms a burst of 70 batch tasks
+// with a 500ms deadline, followed by 20 interactive tasks with a 30ms
+// deadline; FIFO vs earliest deadline first
+public class ThreadPoolBenchmark {
+    private static final int POOL_SIZE = 2;
+    private static final long TASK_MILLIS = 2;
+    private static final int BURSTS = 30;
+
+    public static void main(String... args) throws InterruptedException {
+        for (int run = 0; run < 3; run++) {
+            traffic("FIFO", false);
+            traffic("EDF", true);
+        }
+    }
+
+    private static void traffic(String name, boolean edf) throws InterruptedException {
+        var pool = new ThreadPool(POOL_SIZE);
+        var missed = new LongAdder();
+        var met = new LongAdder();
+        for (int burst = 0; burst < BURSTS; burst++) {
+            for (int i = 0; i < 70; i++) submit(pool, edf, 500, met, missed);
+            for (int i = 0; i < 20; i++) submit(pool, edf, 30, met, missed);
+            Thread.sleep(100);
+        }
+        Thread.sleep(1000);
+        pool.shutdown();
+        long total = BURSTS * 90;
+        System.out.printf("%-4s met=%d missed=%d dropped=%d (%.1f%% of deadlines met)%n",
+            name, met.sum(), missed.sum(), pool.getDroppedCount(), 100.0 * met.sum() / total);
+    }
+
+    private static void submit(ThreadPool pool, boolean edf, long timeoutMillis,
+                               LongAdder met, LongAdder missed) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Runnable task = () -> {
+            try {
+                Thread.sleep(TASK_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (System.nanoTime() - deadline <= 0) met.increment();
+            else missed.increment();
+        };
+        if (edf) pool.submit(task, timeoutMillis, TASK_MILLIS, TimeUnit.MILLISECONDS);
+        else pool.submit(task);
+    }
+}
@@ -0,0 +1,240 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_24;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testIdleWorkersStopOnShutdown() throws InterruptedException {
+        var threads = ConcurrentHashMap.<Thread>newKeySet();
+        var pool = new ThreadPool(3);
+        var latch = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            pool.submit(() -> {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        pool.shutdown();
+        for (var thread : threads) {
+            thread.join(1000);
+            assertFalse("idle worker still waiting", thread.isAlive());
+        }
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testEarliestDeadlineRunsFirst() throws InterruptedException {
+        var pool = new ThreadPool(1, 4);
+        var blocker = blockWorker(pool);
+        var ran = new ConcurrentLinkedQueue<String>();
+        pool.submit(() -> ran.add("none"));
+        pool.submit(() -> ran.add("500"), 500, TimeUnit.MILLISECONDS);
+        pool.submit(() -> ran.add("100"), 100, TimeUnit.MILLISECONDS);
+        pool.submit(() -> ran.add("300"), 300, TimeUnit.MILLISECONDS);
+        pool.submit(() -> ran.add("200"), 200, TimeUnit.MILLISECONDS);
+        assertEquals(5, pool.getRunQueueLength());
+        blocker.countDown();
+        Thread.sleep(100);
+        assertEquals(List.of("100", "200", "300", "500", "none"), List.copyOf(ran));
+        assertEquals(0, pool.getDroppedCount());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testTasksWithoutDeadlineRunInSubmissionOrder() throws InterruptedException {
+        var pool = new ThreadPool(1, 8);
+        var blocker = blockWorker(pool);
+        var ran = new ConcurrentLinkedQueue<Integer>();
+        var expected = new ArrayList<Integer>();
+        for (int i = 0; i < 100; i++) {
+            int task = i;
+            pool.submit(() -> ran.add(task));
+            expected.add(i);
+        }
+        blocker.countDown();
+        Thread.sleep(100);
+        assertEquals(expected, List.copyOf(ran));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testTasksThatCannotMakeTheirDeadlineAreDropped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var late = new ConcurrentHashMap<Runnable, Long>();
+        pool.addListener(late::put);
+        var ran = new ConcurrentLinkedQueue<String>();
+        pool.submit(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(50);
+        Runnable expired = () -> ran.add("expired");
+        Runnable tooLong = () -> ran.add("tooLong");
+        pool.submit(expired, 50, TimeUnit.MILLISECONDS);
+        pool.submit(tooLong, 1000, 900, TimeUnit.MILLISECONDS);
+        pool.submit(() -> ran.add("fits"), 1000, 500, TimeUnit.MILLISECONDS);
+        Thread.sleep(300);
+        assertEquals(List.of("fits"), List.copyOf(ran));
+        assertEquals(2, pool.getDroppedCount());
+        assertEquals(Set.of(expired, tooLong), late.keySet());
+        assertTrue(late.values().stream().allMatch(nanos -> nanos > 0));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testFailingListenerDoesNotKillTheWorker() throws InterruptedException {
+        var reported = new LongAdder();
+        var defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((t, e) -> reported.increment());
+        try {
+            var pool = new ThreadPool(1);
+            pool.addListener((job, lateNanos) -> {
+                throw new IllegalStateException("expected in test");
+            });
+            var ran = new CountDownLatch(1);
+            for (int i = 0; i < 5; i++) {
+                pool.submit(() -> fail("should have been dropped"), 1000, 2000, TimeUnit.MILLISECONDS);
+            }
+            pool.submit(ran::countDown);
+            assertTrue("worker died", ran.await(1, TimeUnit.SECONDS));
+            assertEquals(5, pool.getDroppedCount());
+            assertEquals(5, reported.sum());
+            pool.shutdown();
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(defaultHandler);
+        }
+    }
+
+    @Test
+    public void testEveryTaskRunsOnceUnderContention() throws InterruptedException {
+        var pool = new ThreadPool(4, 4);
+        int perSubmitter = 25_000;
+        var runs = new AtomicIntegerArray(4 * perSubmitter);
+        var done = new CountDownLatch(4 * perSubmitter);
+        var submitters = new Thread[4];
+        for (int t = 0; t < submitters.length; t++) {
+            int first = t * perSubmitter;
+            submitters[t] = new Thread(() -> {
+                var random = ThreadLocalRandom.current();
+                for (int i = first; i < first + perSubmitter; i++) {
+                    int task = i;
+                    pool.submit(() -> {
+                        runs.incrementAndGet(task);
+                        done.countDown();
+                    }, random.nextInt(1000, 100_000), TimeUnit.MILLISECONDS);
+                }
+            });
+            submitters[t].start();
+        }
+        for (var submitter : submitters) submitter.join();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < runs.length(); i++) {
+            assertEquals("task " + i, 1, runs.get(i));
+        }
+        assertEquals(0, pool.getRunQueueLength());
+        pool.shutdown();
+    }
+
+    private CountDownLatch blockWorker(ThreadPool pool) throws InterruptedException {
+        var started = new CountDownLatch(1);
+        var blocker = new CountDownLatch(1);
+        pool.submit(() -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private volatile Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
@@ -0,0 +1,105 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_3;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Decides what happens to a job that is submitted while the task queue of
+ * the ThreadPool is full. Every call counts as one rejection in
+ * {@link ThreadPool#getRejectedCount()}. Policies can requeue or drop jobs
+ * through the {@link Context} that they are handed, which is all that the
+ * built-in policies use as well.
+ */
+@FunctionalInterface
+public interface RejectionPolicy {
+    void rejected(Runnable job, Context context);
+
+    /**
+     * What a policy may do to the queue of the pool that rejected the job.
+     */
+    interface Context {
+        boolean isShutdown();
+
+        /**
+         * Adds the job to the queue if there is space, without going
+         * through the policy again.
+         */
+        boolean offer(Runnable job);
+
+        /**
+         * Waits up to the timeout for space in the queue.
+         */
+        boolean offer(Runnable job, long timeout, TimeUnit unit)
+            throws InterruptedException;
+
+        /**
+         * Removes the job at the head of the queue and counts it in
+         * {@link ThreadPool#getDroppedCount()}.
+         *
+         * @return the discarded job, or null if the workers emptied the
+         * queue in the meantime
+         */
+        Runnable dropOldest();
+    }
+
+    /**
+     * Runs the job in the thread that called submit(), which slows the
+     * producer down to the speed of the pool. Jobs submitted after
+     * shutdown are discarded.
+     */
+    static RejectionPolicy callerRuns() {
+        return (job, context) -> {
+            if (!context.isShutdown()) job.run();
+        };
+    }
+
+    /**
+     * Waits up to the timeout for space in the queue, and then throws a
+     * RejectedExecutionException.
+     */
+    static RejectionPolicy blockWithTimeout(long timeout, TimeUnit unit) {
+        return (job, context) -> {
+            try {
+                if (!context.offer(job, timeout, unit))
+                    throw new RejectedExecutionException(
+                        "Queue still full after " + timeout + " " + unit);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting", e);
+            }
+        };
+    }
+
+    /**
+     * Discards the oldest queued job to make space for the new one. The
+     * discarded jobs are counted in {@link ThreadPool#getDroppedCount()}.
+     */
+    static RejectionPolicy dropOldest() {
+        return dropOldest(dropped -> {});
+    }
+
+    /**
+     * Like {@link #dropOldest()}, but also hands every discarded job to
+     * onDrop, for example to fail the request that it belongs to.
+     */
+    static RejectionPolicy dropOldest(Consumer<Runnable> onDrop) {
+        Objects.requireNonNull(onDrop, "onDrop");
+        return (job, context) -> {
+            do {
+                // a worker might have beaten us to it
+                var oldest = context.dropOldest();
+                if (oldest != null) onDrop.accept(oldest);
+            } while (!context.offer(job));
+        };
+    }
+
+    /**
+     * Throws a RejectedExecutionException straight away.
+     */
+    static RejectionPolicy failFast() {
+        return (job, context) -> {
+            throw new RejectedExecutionException("Queue full");
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_3;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// solution #7 - bounded queue with a rejection policy for overload
+public class ThreadPool implements TaskPool {
+    private final BlockingQueue<Runnable> tasks;
+    private final RejectionPolicy rejectionPolicy;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    // what the rejection policy may do to the queue, kept off our public API
+    private final RejectionPolicy.Context policyContext = new PolicyContext();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        this(poolSize, Integer.MAX_VALUE, RejectionPolicy.failFast());
+    }
+
+    public ThreadPool(int poolSize, int capacity, RejectionPolicy rejectionPolicy) {
+        this(poolSize, new LinkedBlockingQueue<>(capacity), rejectionPolicy);
+    }
+
+    public ThreadPool(int poolSize, BlockingQueue<Runnable> tasks,
+                      RejectionPolicy rejectionPolicy) {
+        this.tasks = Objects.requireNonNull(tasks, "tasks");
+        this.rejectionPolicy = Objects.requireNonNull(rejectionPolicy, "rejectionPolicy");
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    private Runnable take() throws InterruptedException {
+        return tasks.take();
+    }
+
+    /**
+     * Adds the job to the queue, or hands it to the RejectionPolicy if
+     * the queue is full.
+     *
+     * @throws RejectedExecutionException if the policy refuses the job
+     */
+    public void submit(Runnable job) {
+        Objects.requireNonNull(job, "job");
+        if (!tasks.offer(job)) {
+            rejected.increment();
+            rejectionPolicy.rejected(job, policyContext);
+        }
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    /**
+     * The number of times that submit() found the queue full.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * The number of queued jobs that were discarded to make space for new
+     * ones, see {@link RejectionPolicy#dropOldest()}.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public boolean isShutdown() {
+        return !running;
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private class PolicyContext implements RejectionPolicy.Context {
+        public boolean isShutdown() {
+            return !running;
+        }
+
+        public boolean offer(Runnable job) {
+            return tasks.offer(Objects.requireNonNull(job, "job"));
+        }
+
+        public boolean offer(Runnable job, long timeout, TimeUnit unit)
+            throws InterruptedException {
+            return tasks.offer(Objects.requireNonNull(job, "job"), timeout, unit);
+        }
+
+        public Runnable dropOldest() {
+            var oldest = tasks.poll();
+            if (oldest != null) dropped.increment();
+            return oldest;
+        }
+    }
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next task from the queue using take()
+                // we then call the run() method on the job
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_3;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(
+            new ThreadPool(10, 100, RejectionPolicy.failFast()));
+    }
+
+    @Test
+    public void testFailFast() throws InterruptedException {
+        var blocker = new CountDownLatch(1);
+        var pool = blockedPool(2, RejectionPolicy.failFast(), blocker);
+        try {
+            pool.submit(() -> {});
+            fail("Expected RejectedExecutionException");
+        } catch (RejectedExecutionException expected) {
+        } finally {
+            blocker.countDown();
+            pool.shutdown();
+        }
+        assertEquals(1, pool.getRejectedCount());
+    }
+
+    @Test
+    public void testCallerRuns() throws InterruptedException {
+        var blocker = new CountDownLatch(1);
+        var pool = blockedPool(2, RejectionPolicy.callerRuns(), blocker);
+        var ranIn = new Thread[1];
+        pool.submit(() -> ranIn[0] = Thread.currentThread());
+        blocker.countDown();
+        pool.shutdown();
+        assertSame(Thread.currentThread(), ranIn[0]);
+        assertEquals(1, pool.getRejectedCount());
+    }
+
+    @Test
+    public void testBlockWithTimeout() throws InterruptedException {
+        var blocker = new CountDownLatch(1);
+        var pool = blockedPool(2,
+            RejectionPolicy.blockWithTimeout(200, TimeUnit.MILLISECONDS), blocker);
+        var time = System.currentTimeMillis();
+        try {
+            pool.submit(() -> {});
+            fail("Expected RejectedExecutionException");
+        } catch (RejectedExecutionException expected) {
+        }
+        time = System.currentTimeMillis() - time;
+        assertTrue("Did not wait for the timeout: " + time, time >= 190);
+
+        // once the blocked worker continues, space frees up again
+        var latch = new CountDownLatch(1);
+        var releaser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            blocker.countDown();
+        });
+        releaser.start();
+        pool.submit(latch::countDown);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(2, pool.getRejectedCount());
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        var blocker = new CountDownLatch(1);
+        var pool = blockedPool(0, RejectionPolicy.dropOldest(), blocker);
+        var ran = new ConcurrentLinkedQueue<Integer>();
+        var latch = new CountDownLatch(2);
+        for (int i = 0; i < 5; i++) {
+            int job = i;
+            pool.submit(() -> {
+                ran.add(job);
+                latch.countDown();
+            });
+        }
+        assertEquals(2, pool.getRunQueueLength());
+        blocker.countDown();
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(List.of(3, 4), new ArrayList<>(ran));
+        assertEquals(3, pool.getRejectedCount());
+        assertEquals(3, pool.getDroppedCount());
+    }
+
+    @Test
+    public void testDropOldestHandsOverTheDroppedJobs() throws InterruptedException {
+        var blocker = new CountDownLatch(1);
+        var dropped = new ConcurrentLinkedQueue<Runnable>();
+        var pool = blockedPool(0, RejectionPolicy.dropOldest(dropped::add), blocker);
+        var jobs = new ArrayList<Runnable>();
+        for (int i = 0; i < 5; i++) {
+            Runnable job = () -> {};
+            jobs.add(job);
+            pool.submit(job);
+        }
+        assertEquals(jobs.subList(0, 3), new ArrayList<>(dropped));
+        assertEquals(3, pool.getDroppedCount());
+        blocker.countDown();
+        pool.shutdown();
+    }
+
+    @Test
+    public void testCustomPolicyCanRequeueAndDrop() throws InterruptedException {
+        var blocker = new CountDownLatch(1);
+        // only uses what the context offers to every policy
+        RejectionPolicy dropOldestOrWait = (job, context) -> {
+            context.dropOldest();
+            try {
+                if (!context.offer(job, 100, TimeUnit.MILLISECONDS))
+                    throw new RejectedExecutionException("still full");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(e);
+            }
+        };
+        var pool = blockedPool(2, dropOldestOrWait, blocker);
+        var ran = new CountDownLatch(1);
+        pool.submit(ran::countDown);
+        assertEquals(1, pool.getRejectedCount());
+        assertEquals(1, pool.getDroppedCount());
+        assertEquals(2, pool.getRunQueueLength());
+        blocker.countDown();
+        assertTrue(ran.await(1, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
+    // single worker stuck on the blocker, with a queue of capacity 2
+    // that already contains "queued" empty jobs
+    private ThreadPool blockedPool(int queued, RejectionPolicy policy,
+                                   CountDownLatch blocker) throws InterruptedException {
+        var pool = new ThreadPool(1, 2, policy);
+        var started = new CountDownLatch(1);
+        pool.submit(() -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < queued; i++) {
+            pool.submit(() -> {});
+        }
+        return pool;
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+}
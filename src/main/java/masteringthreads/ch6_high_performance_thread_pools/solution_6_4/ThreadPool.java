@@ -0,0 +1,140 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_4;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// solution #8 - elastic pool that grows under load and shrinks when idle
+public class ThreadPool implements TaskPool {
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger workerCount = new AtomicInteger();
+    private final AtomicInteger nextWorkerId = new AtomicInteger();
+    private final int corePoolSize;
+    private final int maxPoolSize;
+    private final int queueThreshold;
+    private final long keepAliveNanos;
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        this(poolSize, poolSize, 0, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Starts corePoolSize workers. Whenever a submit() leaves more than
+     * queueThreshold tasks in the queue, another worker is started, up to
+     * maxPoolSize. Workers above the core size retire once they have been
+     * idle for the keep-alive time.
+     */
+    public ThreadPool(int corePoolSize, int maxPoolSize, int queueThreshold,
+                      long keepAlive, TimeUnit unit) {
+        if (corePoolSize < 1 || maxPoolSize < corePoolSize || queueThreshold < 0 || keepAlive < 0)
+            throw new IllegalArgumentException();
+        this.corePoolSize = corePoolSize;
+        this.maxPoolSize = maxPoolSize;
+        this.queueThreshold = queueThreshold;
+        this.keepAliveNanos = unit.toNanos(keepAlive);
+        for (int i = 0; i < corePoolSize; i++) {
+            workerCount.incrementAndGet();
+            startWorker();
+        }
+    }
+
+    private void startWorker() {
+        var worker = new Worker("worker-" + nextWorkerId.getAndIncrement());
+        workers.add(worker);
+        worker.start();
+    }
+
+    private boolean tryAddWorker() {
+        int count;
+        do {
+            count = workerCount.get();
+            if (count >= maxPoolSize) return false;
+        } while (!workerCount.compareAndSet(count, count + 1));
+        startWorker();
+        return true;
+    }
+
+    // replaces a worker that a task killed, so that we never drop below
+    // the core size and leave queued tasks without anyone to run them
+    private void tryReplaceWorker() {
+        int count;
+        do {
+            count = workerCount.get();
+            if (count >= corePoolSize) return;
+        } while (!workerCount.compareAndSet(count, count + 1));
+        startWorker();
+    }
+
+    private boolean tryRetire() {
+        int count;
+        do {
+            count = workerCount.get();
+            if (count <= corePoolSize) return false;
+        } while (!workerCount.compareAndSet(count, count - 1));
+        return true;
+    }
+
+    public void submit(Runnable job) {
+        tasks.add(job);
+        if (running && tasks.size() > queueThreshold) tryAddWorker();
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    public int getPoolSize() {
+        return workerCount.get();
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // tryRetire() has already counted us out
+            boolean retired = false;
+            try {
+                // we run in a loop until we are shut down or retire:
+                while (running) {
+                    try {
+                        var task = take();
+                        if (task == null) {
+                            retired = true;
+                            return;
+                        }
+                        task.run();
+                    } catch (InterruptedException consumeAndExit) {
+                        break;
+                    }
+                }
+            } finally {
+                // also when a task threw, otherwise the count would creep
+                // up and stop the pool from growing
+                if (!retired) workerCount.decrementAndGet();
+                workers.remove(this);
+                if (running) tryReplaceWorker();
+            }
+        }
+
+        private Runnable take() throws InterruptedException {
+            while (true) {
+                // core workers wait forever, the others only for the keep-alive
+                if (workerCount.get() <= corePoolSize) return tasks.take();
+                var task = tasks.poll(keepAliveNanos, TimeUnit.NANOSECONDS);
+                if (task != null) return task;
+                if (tryRetire()) return null;
+            }
+        }
+    }
+}
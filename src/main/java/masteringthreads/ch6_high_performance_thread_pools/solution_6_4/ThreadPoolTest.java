@@ -0,0 +1,148 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_4;
+
+import org.junit.*;
+
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testPoolGrowsToAbsorbBurstAndShrinksWhenIdle() throws InterruptedException {
+        var pool = new ThreadPool(2, 10, 0, 200, TimeUnit.MILLISECONDS);
+        assertEquals(2, pool.getPoolSize());
+        // 19 one second jobs would need 10 seconds on 2 workers
+        checkStandardThreadPoolFunctionality(pool, false);
+        assertTrue(pool.getPoolSize() > 2);
+        Thread.sleep(1000);
+        assertEquals("idle workers above the core size should retire",
+            2, pool.getPoolSize());
+        assertEquals(0, pool.getRunQueueLength());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testPoolDoesNotGrowBelowThreshold() throws InterruptedException {
+        var pool = new ThreadPool(1, 10, 100, 1, TimeUnit.SECONDS);
+        var latch = new CountDownLatch(50);
+        for (int i = 0; i < 50; i++) {
+            pool.submit(latch::countDown);
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(1, pool.getPoolSize());
+        pool.shutdown();
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        checkStandardThreadPoolFunctionality(pool, true);
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool, boolean shutdown) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        if (shutdown) pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    @Test
+    public void testWorkersKilledByTasksAreReplaced() throws InterruptedException {
+        // below the threshold, submit() does not start any workers itself
+        var pool = new ThreadPool(2, 4, 5, 1, TimeUnit.SECONDS);
+        var died = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            pool.submit(() -> {
+                // keep the console clean, we expect these to die
+                Thread.currentThread().setUncaughtExceptionHandler((t, e) -> died.countDown());
+                throw new IllegalStateException("expected in test");
+            });
+        }
+        assertTrue(died.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(2, pool.getPoolSize());
+        var ran = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) pool.submit(ran::countDown);
+        assertTrue("nobody is left to run the tasks", ran.await(1, TimeUnit.SECONDS));
+        // with the count right, the pool can still grow to its maximum
+        var latch = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                latch.countDown();
+            });
+        }
+        assertEquals(4, pool.getPoolSize());
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
+    private Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(2, 10, 0, 1, TimeUnit.SECONDS);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+        assertEquals(0, pool.getPoolSize());
+    }
+}
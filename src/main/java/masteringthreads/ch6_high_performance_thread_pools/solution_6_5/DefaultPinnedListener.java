@@ -0,0 +1,17 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_5;
+
+import jdk.jfr.consumer.*;
+
+public class DefaultPinnedListener implements ThreadPool.Listener {
+    public void pinned(RecordedEvent event) {
+        System.err.println("Pinned carrier thread for " + event.getDuration().toMillis() +
+            "ms in " + event.getThread().getJavaName());
+        var stackTrace = event.getStackTrace();
+        if (stackTrace != null) {
+            for (var frame : stackTrace.getFrames()) {
+                System.err.println("\t" + frame.getMethod().getType().getName() +
+                    "." + frame.getMethod().getName() + ":" + frame.getLineNumber());
+            }
+        }
+    }
+}
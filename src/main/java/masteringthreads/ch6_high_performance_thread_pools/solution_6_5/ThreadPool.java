@@ -0,0 +1,125 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_5;
+
+import masteringthreads.util.*;
+
+import jdk.jfr.consumer.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// solution #9 - every task gets its own virtual thread
+public class ThreadPool implements TaskPool {
+    private static final AtomicInteger poolNumber = new AtomicInteger();
+
+    private final String namePrefix = "pool-" + poolNumber.incrementAndGet() + "-virtual-";
+    private final ThreadFactory factory = Thread.ofVirtual().name(namePrefix, 0).factory();
+    // caps how many tasks may run at the same time, instead of a fixed
+    // number of platform worker threads
+    private final Semaphore permits;
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder pinned = new LongAdder();
+    private final Collection<Listener> listeners = new CopyOnWriteArraySet<>();
+    // null unless we were asked to report pinned carrier threads
+    private final RecordingStream pinnedEvents;
+    private volatile boolean running = true;
+
+    public ThreadPool(int maxConcurrency) {
+        this(maxConcurrency, false);
+    }
+
+    /**
+     * @param reportPinning if true, we start a JFR recording stream that
+     *                      counts pinned carrier threads and tells the
+     *                      listeners about them; this costs a background
+     *                      thread and some JFR overhead, so it is off by
+     *                      default
+     */
+    public ThreadPool(int maxConcurrency, boolean reportPinning) {
+        permits = new Semaphore(maxConcurrency);
+        if (!reportPinning) {
+            pinnedEvents = null;
+            return;
+        }
+        // a virtual thread that blocks inside synchronized or a native
+        // frame cannot unmount and pins its carrier thread
+        pinnedEvents = new RecordingStream();
+        pinnedEvents.enable("jdk.VirtualThreadPinned").withStackTrace();
+        pinnedEvents.onEvent("jdk.VirtualThreadPinned", event -> {
+            var thread = event.getThread();
+            if (thread != null && thread.getJavaName() != null
+                && thread.getJavaName().startsWith(namePrefix)) {
+                pinned.increment();
+                listeners.forEach(l -> l.pinned(event));
+            }
+        });
+        pinnedEvents.startAsync();
+    }
+
+    public void submit(Runnable job) {
+        Objects.requireNonNull(job, "job");
+        if (!running) return;
+        var thread = factory.newThread(() -> {
+            try {
+                waiting.incrementAndGet();
+                try {
+                    permits.acquire();
+                } finally {
+                    waiting.decrementAndGet();
+                }
+                try {
+                    if (running) job.run();
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException consumeAndExit) {
+                // shut down while we were waiting for a permit
+            } finally {
+                threads.remove(Thread.currentThread());
+            }
+        });
+        threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * The number of tasks that have been submitted, but are still
+     * waiting for a permit to run.
+     */
+    public int getRunQueueLength() {
+        return waiting.get();
+    }
+
+    /**
+     * The number of times that one of our virtual threads pinned its
+     * carrier thread for longer than the JFR threshold (20ms by default).
+     * JFR delivers the events asynchronously, so this lags a little.
+     * Always 0 unless the pool was created with reportPinning.
+     */
+    public long getPinnedCount() {
+        return pinned.sum();
+    }
+
+    public boolean addListener(Listener l) {
+        return listeners.add(l);
+    }
+
+    public boolean removeListener(Listener l) {
+        return listeners.remove(l);
+    }
+
+    public void shutdown() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        if (pinnedEvents != null) pinnedEvents.close();
+    }
+
+    /**
+     * This is called whenever one of our virtual threads pinned its
+     * carrier thread.
+     */
+    public interface Listener {
+        void pinned(RecordedEvent event);
+    }
+}
@@ -0,0 +1,47 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_5;
+
+import masteringthreads.util.*;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+
+// I/O bound tasks on a fixed platform pool vs one virtual thread per task
+public class ThreadPoolBenchmark {
+    private static final int PLATFORM_THREADS = 50;
+    private static final int MAX_CONCURRENCY = 10_000;
+    private static final int TASKS = 20_000;
+    private static final long IO_MILLIS = 10;
+
+    public static void main(String... args) throws InterruptedException {
+        for (int run = 0; run < 3; run++) {
+            var platform = new masteringthreads.ch4_applied_threading_techniques.solution_4_2.ThreadPool(PLATFORM_THREADS);
+            test("solution_4_2 (" + PLATFORM_THREADS + " threads)", platform::submit);
+            platform.shutdown();
+
+            var virtual = new ThreadPool(MAX_CONCURRENCY, true);
+            test("solution_6_5 (max " + MAX_CONCURRENCY + " concurrent)", virtual::submit);
+            System.out.println("pinned events: " + virtual.getPinnedCount());
+            virtual.shutdown();
+        }
+    }
+
+    private static void test(String description, Consumer<Runnable> submitter) throws InterruptedException {
+        var latch = new CountDownLatch(TASKS);
+        Runnable task = () -> {
+            try {
+                Thread.sleep(IO_MILLIS); // stands in for a blocking call
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            latch.countDown();
+        };
+        var bm = new Benchmark();
+        bm.start();
+        for (int i = 0; i < TASKS; i++) {
+            submitter.accept(task);
+        }
+        latch.await();
+        bm.stop();
+        System.out.println(description + ": " + bm);
+    }
+}
@@ -0,0 +1,146 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_5;
+
+import org.junit.*;
+
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testManyBlockingTasks() throws InterruptedException {
+        var pool = new ThreadPool(10_000);
+        var latch = new CountDownLatch(10_000);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 10_000; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        assertTrue("Sleeping tasks should not need a thread each: " + time, time < 3000);
+    }
+
+    @Test
+    public void testPinnedCarrierIsReported() throws InterruptedException {
+        var pool = new ThreadPool(1, true);
+        var reported = new CountDownLatch(1);
+        pool.addListener(event -> reported.countDown());
+        var monitor = new Object();
+        pool.submit(() -> {
+            synchronized (monitor) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        boolean noTimeout = reported.await(10, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertTrue("pinned event was not reported", noTimeout);
+        assertEquals(1, pool.getPinnedCount());
+    }
+
+    @Test
+    public void testPinningIsOnlyReportedOnRequest() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        pool.addListener(event -> fail("we did not ask for pinned events"));
+        var monitor = new Object();
+        var done = new CountDownLatch(1);
+        pool.submit(() -> {
+            synchronized (monitor) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            done.countDown();
+        });
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        Thread.sleep(500);
+        pool.shutdown();
+        assertEquals(0, pool.getPinnedCount());
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
@@ -0,0 +1,160 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_6;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+// solution #10 - submit and take tasks in batches
+public class ThreadPool implements TaskPool {
+    private static final int DEFAULT_MAX_BATCH = 16;
+
+    private final Lock tasksLock = new ReentrantLock();
+    private final Condition tasksNotEmpty = tasksLock.newCondition();
+    // @GuardedBy("tasksLock")
+    private final Deque<Runnable> tasks = new ArrayDeque<>();
+    // @GuardedBy("tasksLock")
+    private int waitingWorkers;
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    private final int poolSize;
+    private final int maxBatch;
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        this(poolSize, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param maxBatch the most tasks that a worker takes from the queue
+     *                 each time that it acquires the lock
+     */
+    public ThreadPool(int poolSize, int maxBatch) {
+        if (maxBatch < 1) throw new IllegalArgumentException("maxBatch=" + maxBatch);
+        this.poolSize = poolSize;
+        this.maxBatch = maxBatch;
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    // removes up to maxBatch tasks, but never more than our fair share,
+    // otherwise one worker could sit on a batch of long tasks while the
+    // others are idle
+    private void take(Collection<Runnable> batch) throws InterruptedException {
+        tasksLock.lockInterruptibly();
+        try {
+            waitingWorkers++;
+            try {
+                while (tasks.isEmpty()) tasksNotEmpty.await();
+            } finally {
+                waitingWorkers--;
+            }
+            int share = Math.max(1, tasks.size() / poolSize);
+            for (int i = Math.min(share, maxBatch); i > 0; i--) {
+                batch.add(tasks.remove());
+            }
+            if (!tasks.isEmpty() && waitingWorkers > 0) tasksNotEmpty.signal();
+        } finally {
+            tasksLock.unlock();
+        }
+    }
+
+    public void submit(Runnable job) {
+        Objects.requireNonNull(job, "job");
+        tasksLock.lock();
+        try {
+            tasks.add(job);
+            if (waitingWorkers > 0) tasksNotEmpty.signal();
+        } finally {
+            tasksLock.unlock();
+        }
+    }
+
+    /**
+     * Adds all the jobs with a single lock acquisition, and only wakes up
+     * as many waiting workers as the batch needs.
+     */
+    public void submitAll(Collection<? extends Runnable> jobs) {
+        if (jobs.isEmpty()) return;
+        jobs.forEach(job -> Objects.requireNonNull(job, "job"));
+        tasksLock.lock();
+        try {
+            tasks.addAll(jobs);
+            int needed = (jobs.size() + maxBatch - 1) / maxBatch;
+            if (needed >= waitingWorkers) {
+                tasksNotEmpty.signalAll();
+            } else {
+                for (int i = 0; i < needed; i++) tasksNotEmpty.signal();
+            }
+        } finally {
+            tasksLock.unlock();
+        }
+    }
+
+    // puts the tasks back at the head of the queue, in their old order
+    private void giveBack(List<Runnable> unprocessed) {
+        tasksLock.lock();
+        try {
+            for (int i = unprocessed.size() - 1; i >= 0; i--) {
+                tasks.addFirst(unprocessed.get(i));
+            }
+            if (waitingWorkers > 0) tasksNotEmpty.signal();
+        } finally {
+            tasksLock.unlock();
+        }
+    }
+
+    public int getRunQueueLength() {
+        tasksLock.lock();
+        try {
+            return tasks.size();
+        } finally {
+            tasksLock.unlock();
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private class Worker extends Thread {
+        private final List<Runnable> batch = new ArrayList<>(maxBatch);
+
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next batch of tasks from the queue using take()
+                // and then call the run() method on each of the jobs
+                int next = 0;
+                try {
+                    take(batch);
+                    while (next < batch.size() && running) {
+                        var job = batch.get(next++);
+                        try {
+                            job.run();
+                        } catch (RuntimeException e) {
+                            // one failing job must not cost us the worker,
+                            // nor the jobs behind it in the batch
+                            getUncaughtExceptionHandler().uncaughtException(this, e);
+                        }
+                    }
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                } finally {
+                    // an Error still kills the worker, but the rest of its
+                    // batch goes back to the queue for the other workers
+                    if (running && next < batch.size()) giveBack(batch.subList(next, batch.size()));
+                    batch.clear();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_6;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// one lock/signal per task vs one per batch of BATCH_SIZE tasks
+public class ThreadPoolBenchmark {
+    private static final int POOL_SIZE = 8;
+    private static final int PRODUCERS = 4;
+    private static final int BATCH_SIZE = 500;
+    private static final int TASKS = 1_000_000;
+
+    public static void main(String... args) throws InterruptedException {
+        for (int run = 0; run < 5; run++) {
+            var single = new ThreadPool(POOL_SIZE, 1);
+            test("submit(), take 1", single, false);
+            single.shutdown();
+
+            var batched = new ThreadPool(POOL_SIZE, 64);
+            test("submitAll(), take 64", batched, true);
+            batched.shutdown();
+        }
+    }
+
+    private static void test(String description, ThreadPool pool, boolean batch) throws InterruptedException {
+        var latch = new CountDownLatch(TASKS);
+        Runnable task = latch::countDown;
+        var jobs = Collections.nCopies(BATCH_SIZE, task);
+        var bm = new Benchmark();
+        bm.start();
+        var producers = new Thread[PRODUCERS];
+        for (int i = 0; i < producers.length; i++) {
+            producers[i] = new Thread(() -> {
+                for (int j = 0; j < TASKS / PRODUCERS / BATCH_SIZE; j++) {
+                    if (batch) pool.submitAll(jobs);
+                    else jobs.forEach(pool::submit);
+                }
+            });
+            producers[i].start();
+        }
+        for (var producer : producers) producer.join();
+        latch.await();
+        bm.stop();
+        System.out.println(description + ": " + bm);
+    }
+}
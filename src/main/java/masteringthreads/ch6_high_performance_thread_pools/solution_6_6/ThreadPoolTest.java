@@ -0,0 +1,212 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_6;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10), false);
+    }
+
+    @Test
+    public void testThatBatchesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10), true);
+    }
+
+    @Test
+    public void testSubmitAllRunsEveryJobOnce() throws InterruptedException {
+        var pool = new ThreadPool(4, 8);
+        var count = new LongAdder();
+        var latch = new CountDownLatch(100 * 500);
+        for (int b = 0; b < 100; b++) {
+            var batch = new ArrayList<Runnable>();
+            for (int i = 0; i < 500; i++) {
+                batch.add(() -> {
+                    count.increment();
+                    latch.countDown();
+                });
+            }
+            pool.submitAll(batch);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(100 * 500, count.sum());
+        assertEquals(0, pool.getRunQueueLength());
+    }
+
+    @Test
+    public void testWorkersTakeAtMostMaxBatch() throws InterruptedException {
+        var pool = new ThreadPool(1, 3);
+        var blocker = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+        pool.submit(() -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        var stuck = new CountDownLatch(1);
+        var ran = new CountDownLatch(3);
+        var batch = new ArrayList<Runnable>();
+        for (int i = 0; i < 3; i++) batch.add(ran::countDown);
+        batch.add(() -> {
+            try {
+                stuck.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 6; i++) batch.add(() -> {});
+        pool.submitAll(batch);
+        assertEquals(10, pool.getRunQueueLength());
+        blocker.countDown();
+        assertTrue(ran.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        // the first batch of three has run, the second is stuck in the
+        // blocking job, and the rest stays in the queue
+        assertEquals(4, pool.getRunQueueLength());
+        stuck.countDown();
+        pool.shutdown();
+    }
+
+    @Test
+    public void testFailingJobDoesNotLoseTheRestOfTheBatch() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var blocker = blockWorker(pool);
+        var ran = new CountDownLatch(4);
+        var batch = new ArrayList<Runnable>();
+        batch.add(ran::countDown);
+        batch.add(() -> {
+            throw new IllegalStateException("expected in test");
+        });
+        for (int i = 0; i < 3; i++) batch.add(ran::countDown);
+        pool.submitAll(batch);
+        blocker.countDown();
+        assertTrue("jobs behind the failing one were lost",
+            ran.await(1, TimeUnit.SECONDS));
+        // and the only worker is still there
+        var alive = new CountDownLatch(1);
+        pool.submit(alive::countDown);
+        assertTrue(alive.await(1, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testDyingWorkerGivesBackTheRestOfTheBatch() throws InterruptedException {
+        var pool = new ThreadPool(2);
+        var blockers = List.of(blockWorker(pool), blockWorker(pool));
+        var ran = new CountDownLatch(5);
+        var batch = new ArrayList<Runnable>();
+        batch.add(ran::countDown);
+        batch.add(() -> {
+            // keep the console clean, we expect this worker to die
+            Thread.currentThread().setUncaughtExceptionHandler((t, e) -> {});
+            throw new Error("expected in test");
+        });
+        for (int i = 0; i < 4; i++) batch.add(ran::countDown);
+        pool.submitAll(batch);
+        // both workers are busy, so the first one to finish takes its fair
+        // share of three and dies on the second, with one left over
+        blockers.get(0).countDown();
+        Thread.sleep(100);
+        blockers.get(1).countDown();
+        assertTrue("the other worker should run the rest of the batch",
+            ran.await(1, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
+    private CountDownLatch blockWorker(ThreadPool pool) throws InterruptedException {
+        var started = new CountDownLatch(1);
+        var blocker = new CountDownLatch(1);
+        pool.submit(() -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool, boolean batch) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        var jobs = new ArrayList<Runnable>();
+        for (int i = 0; i < 19; i++) {
+            jobs.add(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        if (batch) pool.submitAll(jobs);
+        else jobs.forEach(pool::submit);
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
@@ -0,0 +1,282 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_7;
+
+import java.lang.invoke.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+/**
+ * Lighter alternative to FutureTask. The future is itself the Runnable
+ * that goes into the queue, so a submit() only allocates this object.
+ * The result lives in a single field, and a failure or cancellation only
+ * allocates when it happens. Waiter and callback nodes are pushed onto a
+ * Treiber stack, and are only created when somebody actually blocks in
+ * get() or registers a callback before the task is done.
+ */
+public class TaskFuture<T> implements Future<T>, Runnable {
+    private static final VarHandle OUTCOME;
+    private static final VarHandle RUNNER;
+    private static final VarHandle STACK;
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            var lookup = MethodHandles.lookup();
+            OUTCOME = lookup.findVarHandle(TaskFuture.class, "outcome", Object.class);
+            RUNNER = lookup.findVarHandle(TaskFuture.class, "runner", Thread.class);
+            STACK = lookup.findVarHandle(TaskFuture.class, "stack", Node.class);
+            NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final Object NEW = new Object();
+    private static final Object NIL = new Object();
+    private static final Object INTERRUPTING = new Object();
+    private static final Failure CANCELLED = new Failure(null);
+    private static final Node DONE = new Node();
+
+    private final Callable<T> callable;
+    // NEW, INTERRUPTING, NIL for a null result, a Failure or the result
+    private volatile Object outcome = NEW;
+    private volatile Thread runner;
+    // waiters and callbacks, or DONE once they have all been released
+    private volatile Node stack;
+
+    public TaskFuture(Callable<T> callable) {
+        this.callable = Objects.requireNonNull(callable, "callable");
+    }
+
+    public void run() {
+        if (outcome != NEW || !RUNNER.compareAndSet(this, null, Thread.currentThread()))
+            return;
+        boolean completed = false;
+        try {
+            Object result;
+            try {
+                T value = callable.call();
+                result = value == null ? NIL : value;
+            } catch (Throwable t) {
+                result = new Failure(t);
+            }
+            completed = complete(result);
+        } finally {
+            runner = null;
+            if (!completed) {
+                // we lost the race against cancel(); wait until its interrupt
+                // has arrived, so that we can clear it before it hits the
+                // next task on this worker
+                while (outcome == INTERRUPTING) Thread.onSpinWait();
+                Thread.interrupted();
+            }
+        }
+    }
+
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!OUTCOME.compareAndSet(this, NEW, mayInterruptIfRunning ? INTERRUPTING : CANCELLED))
+            return false;
+        if (mayInterruptIfRunning) {
+            try {
+                var thread = runner;
+                if (thread != null) thread.interrupt();
+            } finally {
+                outcome = CANCELLED;
+            }
+        }
+        releaseStack();
+        return true;
+    }
+
+    private boolean complete(Object result) {
+        if (!OUTCOME.compareAndSet(this, NEW, result)) return false;
+        releaseStack();
+        return true;
+    }
+
+    private void releaseStack() {
+        var node = (Node) STACK.getAndSet(this, DONE);
+        // the stack is in reverse order of registration; the links are
+        // swapped with a CAS because unlinkCancelledWaiters() may still be
+        // cutting out a waiter that gave up
+        Node reversed = null;
+        while (node != null) {
+            var next = node.next;
+            if (!NEXT.compareAndSet(node, next, reversed)) continue;
+            reversed = node;
+            node = next;
+        }
+        for (node = reversed; node != null; node = node.next) {
+            node.release(this);
+        }
+    }
+
+    // returns false if the future is already done and the node was not pushed
+    private boolean push(Node node) {
+        while (true) {
+            var head = stack;
+            if (head == DONE) return false;
+            if (head != null && head.isCancelled()) {
+                // pop waiters that gave up rather than pushing on top of them
+                STACK.compareAndSet(this, head, head.next);
+                continue;
+            }
+            node.next = head;
+            if (STACK.compareAndSet(this, head, node)) return true;
+        }
+    }
+
+    /**
+     * Calls the action with either the result or the exception once the
+     * task is done, in the thread that completes the task. If the task is
+     * already done, the action is called straight away in this thread.
+     */
+    public TaskFuture<T> whenComplete(BiConsumer<? super T, ? super Throwable> action) {
+        Objects.requireNonNull(action, "action");
+        var callback = new Callback(action);
+        if (!push(callback)) callback.release(this);
+        return this;
+    }
+
+    public boolean isCancelled() {
+        var o = outcome;
+        return o == CANCELLED || o == INTERRUPTING;
+    }
+
+    public boolean isDone() {
+        return outcome != NEW;
+    }
+
+    public T get() throws InterruptedException, ExecutionException {
+        if (!isDone()) awaitDone(false, 0L);
+        return report();
+    }
+
+    public T get(long timeout, TimeUnit unit)
+        throws InterruptedException, ExecutionException, TimeoutException {
+        if (!isDone() && !awaitDone(true, unit.toNanos(timeout)))
+            throw new TimeoutException();
+        return report();
+    }
+
+    private boolean awaitDone(boolean timed, long nanos) throws InterruptedException {
+        long deadline = timed ? System.nanoTime() + nanos : 0L;
+        var waiter = new Waiter(Thread.currentThread());
+        if (!push(waiter)) return true;
+        try {
+            while (!isDone()) {
+                if (Thread.interrupted()) throw new InterruptedException();
+                if (timed) {
+                    nanos = deadline - System.nanoTime();
+                    if (nanos <= 0L) return false;
+                    LockSupport.parkNanos(this, nanos);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+            return true;
+        } finally {
+            waiter.thread = null;
+            // after a timeout or interrupt, do not leave our node behind;
+            // repeated timed gets on a long task would otherwise pile up
+            if (!isDone()) unlinkCancelledWaiters();
+        }
+    }
+
+    private void unlinkCancelledWaiters() {
+        retry:
+        while (true) {
+            Node pred = null;
+            for (var node = stack; node != null && node != DONE; ) {
+                var next = node.next;
+                if (!node.isCancelled()) {
+                    pred = node;
+                } else if (pred == null) {
+                    if (!STACK.compareAndSet(this, node, next)) continue retry;
+                } else if (!NEXT.compareAndSet(pred, node, next) || pred.isCancelled()) {
+                    // pred changed under us, or was itself cut out meanwhile
+                    continue retry;
+                }
+                node = next;
+            }
+            return;
+        }
+    }
+
+    // number of nodes on the stack, for testing
+    int getStackSize() {
+        int size = 0;
+        for (var node = stack; node != null && node != DONE; node = node.next) size++;
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T report() throws ExecutionException {
+        var o = outcome;
+        if (o == CANCELLED || o == INTERRUPTING) throw new CancellationException();
+        if (o instanceof Failure failure) throw new ExecutionException(failure.exception);
+        return o == NIL ? null : (T) o;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void callback(BiConsumer<? super T, ? super Throwable> action) {
+        var o = outcome;
+        T value = null;
+        Throwable exception = null;
+        if (o == CANCELLED || o == INTERRUPTING) exception = new CancellationException();
+        else if (o instanceof Failure failure) exception = failure.exception;
+        else if (o != NIL) value = (T) o;
+        try {
+            action.accept(value, exception);
+        } catch (Throwable t) {
+            // do not let a broken callback kill the completing thread
+            var thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+        }
+    }
+
+    private record Failure(Throwable exception) {
+    }
+
+    private static class Node {
+        volatile Node next;
+
+        void release(TaskFuture<?> future) {
+        }
+
+        boolean isCancelled() {
+            return false;
+        }
+    }
+
+    private static final class Waiter extends Node {
+        volatile Thread thread;
+
+        Waiter(Thread thread) {
+            this.thread = thread;
+        }
+
+        void release(TaskFuture<?> future) {
+            var t = thread;
+            if (t != null) LockSupport.unpark(t);
+        }
+
+        boolean isCancelled() {
+            return thread == null;
+        }
+    }
+
+    private static final class Callback extends Node {
+        final BiConsumer<?, ? super Throwable> action;
+
+        Callback(BiConsumer<?, ? super Throwable> action) {
+            this.action = action;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        void release(TaskFuture<?> future) {
+            future.callback((BiConsumer) action);
+        }
+    }
+}
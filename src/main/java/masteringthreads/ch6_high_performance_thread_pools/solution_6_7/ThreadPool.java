@@ -0,0 +1,80 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_7;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// solution #11 - submit(Callable) returns a lightweight future
+public class ThreadPool implements TaskPool {
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    private Runnable take() throws InterruptedException {
+        return tasks.take();
+    }
+
+    public void submit(Runnable job) {
+        tasks.add(job);
+    }
+
+    /**
+     * Queues the task and returns its future, which is also the object
+     * that sits in the queue, so there is no extra wrapper.
+     */
+    public <T> TaskFuture<T> submit(Callable<T> task) {
+        var future = new TaskFuture<>(task);
+        tasks.add(future);
+        // we raced with shutdown(), which may already have drained the queue
+        if (!running) future.cancel(false);
+        return future;
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    /**
+     * Futures that are still queued are removed and cancelled, so that
+     * nobody waits forever in get() and their callbacks are called. Plain
+     * jobs stay in the queue, as in the other pools.
+     */
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        tasks.removeIf(job -> job instanceof TaskFuture<?> future && cancelQueued(future));
+    }
+
+    private static boolean cancelQueued(TaskFuture<?> future) {
+        future.cancel(false);
+        return true;
+    }
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next task from the queue using take()
+                // we then call the run() method on the job
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+    }
+}
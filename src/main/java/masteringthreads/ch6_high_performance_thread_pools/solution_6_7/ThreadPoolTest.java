@@ -0,0 +1,289 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_7;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testThatCallablesAreExecutedConcurrently() throws Exception {
+        var pool = new ThreadPool(10);
+        var time = System.currentTimeMillis();
+        var futures = new ArrayList<TaskFuture<Integer>>();
+        for (int i = 0; i < 19; i++) {
+            int value = i;
+            futures.add(pool.submit(() -> {
+                Thread.sleep(1000);
+                return value;
+            }));
+        }
+        int sum = 0;
+        for (var future : futures) {
+            sum += future.get(3, TimeUnit.SECONDS);
+        }
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        assertEquals(19 * 18 / 2, sum);
+        assertEquals(0, pool.getRunQueueLength());
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    @Test
+    public void testNullResultAndException() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        try {
+            assertNull(pool.submit(() -> null).get());
+            var failed = pool.submit(() -> {
+                throw new IllegalStateException("boom");
+            });
+            try {
+                failed.get();
+                fail("Expected ExecutionException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            assertTrue(failed.isDone());
+            assertFalse(failed.isCancelled());
+        } catch (ExecutionException e) {
+            throw new AssertionError(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testTimedGet() throws Exception {
+        var pool = new ThreadPool(1);
+        var future = pool.submit(() -> {
+            Thread.sleep(500);
+            return "done";
+        });
+        try {
+            future.get(50, TimeUnit.MILLISECONDS);
+            fail("Expected TimeoutException");
+        } catch (TimeoutException expected) {
+        }
+        assertEquals("done", future.get(2, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testTimedOutWaitersAreUnlinked() throws Exception {
+        var pool = new ThreadPool(1);
+        var blocker = new CountDownLatch(1);
+        var future = pool.submit(() -> {
+            blocker.await();
+            return "done";
+        });
+        var called = new AtomicInteger();
+        future.whenComplete((value, exception) -> called.incrementAndGet());
+        for (int i = 0; i < 100; i++) {
+            try {
+                future.get(1, TimeUnit.MILLISECONDS);
+                fail("Expected TimeoutException");
+            } catch (TimeoutException expected) {
+            }
+        }
+        // only the callback is left
+        assertEquals(1, future.getStackSize());
+        blocker.countDown();
+        assertEquals("done", future.get(2, TimeUnit.SECONDS));
+        assertEquals(1, called.get());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testCallbacksSurviveWaitersGivingUp() throws Exception {
+        var pool = new ThreadPool(4);
+        for (int round = 0; round < 200; round++) {
+            var future = pool.submit(() -> {
+                Thread.sleep(1);
+                return "done";
+            });
+            var called = new CountDownLatch(40);
+            var waiters = new ArrayList<Thread>();
+            for (int i = 0; i < 4; i++) {
+                var waiter = new Thread(() -> {
+                    for (int j = 0; j < 10; j++) {
+                        future.whenComplete((value, exception) -> called.countDown());
+                        try {
+                            future.get(100, TimeUnit.MICROSECONDS);
+                        } catch (TimeoutException | InterruptedException | ExecutionException ignore) {
+                        }
+                    }
+                });
+                waiter.start();
+                waiters.add(waiter);
+            }
+            for (var waiter : waiters) waiter.join();
+            assertEquals("done", future.get(2, TimeUnit.SECONDS));
+            // the callbacks run in the completing thread, after get() returns
+            assertTrue("round " + round + " lost callbacks", called.await(1, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testCallbacks() throws Exception {
+        var pool = new ThreadPool(1);
+        var blocker = new CountDownLatch(1);
+        var future = pool.submit(() -> {
+            blocker.await();
+            return 42;
+        });
+        var results = new ConcurrentLinkedQueue<String>();
+        var threads = new ConcurrentLinkedQueue<String>();
+        future.whenComplete((value, exception) -> {
+            results.add("first " + value + " " + exception);
+            threads.add(Thread.currentThread().getName());
+        }).whenComplete((value, exception) -> {
+            results.add("second " + value + " " + exception);
+        });
+        blocker.countDown();
+        assertEquals(42, (int) future.get());
+        Thread.sleep(100);
+        assertEquals(List.of("first 42 null", "second 42 null"), new ArrayList<>(results));
+        assertEquals(List.of("worker-0"), new ArrayList<>(threads));
+        // once done, callbacks run straight away in the caller
+        future.whenComplete((value, exception) ->
+            threads.add(Thread.currentThread().getName()));
+        assertEquals(Thread.currentThread().getName(), new ArrayList<>(threads).get(1));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testCancelRunningTaskDoesNotHurtWorker() throws Exception {
+        var pool = new ThreadPool(1);
+        var started = new CountDownLatch(1);
+        var interrupted = new AtomicBoolean();
+        var future = pool.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw e;
+            }
+            return "never";
+        });
+        var exception = new AtomicReference<Throwable>();
+        future.whenComplete((value, t) -> exception.set(t));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertTrue(future.cancel(true));
+        assertFalse(future.cancel(true));
+        assertTrue(future.isCancelled());
+        assertTrue(future.isDone());
+        try {
+            future.get();
+            fail("Expected CancellationException");
+        } catch (CancellationException expected) {
+        }
+        assertTrue(exception.get() instanceof CancellationException);
+        // the worker is still alive for the next task
+        assertEquals("next", pool.submit(() -> "next").get(1, TimeUnit.SECONDS));
+        assertTrue(interrupted.get());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testQueuedFuturesAreCancelledOnShutdown() throws Exception {
+        var pool = new ThreadPool(1);
+        var started = new CountDownLatch(1);
+        pool.submit(() -> {
+            started.countDown();
+            Thread.sleep(10000);
+            return null;
+        });
+        var queued = pool.submit(() -> "never");
+        pool.submit(() -> fail("should not run after shutdown"));
+        var callback = new CompletableFuture<Throwable>();
+        queued.whenComplete((value, exception) -> callback.complete(exception));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        var waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queued.get();
+            } catch (Exception e) {
+                return e;
+            }
+        });
+        Thread.sleep(100);
+        pool.shutdown();
+        assertTrue(waiter.get(1, TimeUnit.SECONDS) instanceof CancellationException);
+        assertTrue(callback.get(1, TimeUnit.SECONDS) instanceof CancellationException);
+        assertTrue(queued.isCancelled());
+        // the plain job is left in the queue
+        assertEquals(1, pool.getRunQueueLength());
+    }
+
+    @Test
+    public void testCancelledTaskThatIgnoresInterruptDoesNotHurtWorker() throws Exception {
+        var pool = new ThreadPool(1);
+        var started = new CountDownLatch(1);
+        var future = pool.submit(() -> {
+            started.countDown();
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+            while (System.nanoTime() - end < 0) Thread.onSpinWait();
+            return "ignored";
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertTrue(future.cancel(true));
+        var ran = new CountDownLatch(1);
+        pool.submit(ran::countDown);
+        assertTrue("worker died from the cancel", ran.await(1, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testManyWaiters() throws Exception {
+        var pool = new ThreadPool(1);
+        var blocker = new CountDownLatch(1);
+        var future = pool.submit(() -> {
+            blocker.await();
+            return 1;
+        });
+        var sum = new LongAdder();
+        var waiters = new Thread[10];
+        for (int i = 0; i < waiters.length; i++) {
+            waiters[i] = new Thread(() -> {
+                try {
+                    sum.add(future.get());
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            waiters[i].start();
+        }
+        Thread.sleep(100);
+        blocker.countDown();
+        for (var waiter : waiters) {
+            waiter.join(1000);
+            assertFalse(waiter.isAlive());
+        }
+        assertEquals(10, sum.sum());
+        pool.shutdown();
+    }
+}
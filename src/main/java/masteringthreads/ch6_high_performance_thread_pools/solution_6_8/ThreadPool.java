@@ -0,0 +1,144 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_8;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+// solution #12 - priority lanes with weighted deficit round-robin.
+// As HorseRace shows, Thread.setPriority() hardly matters on Linux, so
+// we decide in user space which task runs next. Lane 0 is the most
+// urgent, and every lane gets at least its weight in tasks per round,
+// so that low lanes cannot starve.
+public class ThreadPool implements TaskPool {
+    private static final int[] DEFAULT_WEIGHTS = {8, 2, 1};
+
+    private final Lock tasksLock = new ReentrantLock();
+    private final Condition tasksNotEmpty = tasksLock.newCondition();
+    // @GuardedBy("tasksLock")
+    private final Queue<Runnable>[] lanes;
+    private final int[] weights;
+    // @GuardedBy("tasksLock")
+    private final int[] deficits;
+    // @GuardedBy("tasksLock")
+    private int currentLane;
+    // @GuardedBy("tasksLock")
+    private int size;
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        this(poolSize, DEFAULT_WEIGHTS);
+    }
+
+    /**
+     * @param weights the number of tasks that each lane may run per round,
+     *                starting with the highest priority lane
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ThreadPool(int poolSize, int... weights) {
+        if (weights.length == 0) throw new IllegalArgumentException("no lanes");
+        for (int weight : weights) {
+            if (weight < 1) throw new IllegalArgumentException("weight=" + weight);
+        }
+        this.weights = weights.clone();
+        deficits = new int[weights.length];
+        deficits[0] = weights[0];
+        lanes = new Queue[weights.length];
+        Arrays.setAll(lanes, i -> new ArrayDeque<>());
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    private Runnable take() throws InterruptedException {
+        tasksLock.lockInterruptibly();
+        try {
+            while (size == 0) tasksNotEmpty.await();
+            while (true) {
+                var lane = lanes[currentLane];
+                if (!lane.isEmpty() && deficits[currentLane] > 0) {
+                    deficits[currentLane]--;
+                    size--;
+                    return lane.remove();
+                }
+                // empty lanes do not save up credit for later
+                if (lane.isEmpty()) deficits[currentLane] = 0;
+                currentLane = (currentLane + 1) % lanes.length;
+                deficits[currentLane] += weights[currentLane];
+            }
+        } finally {
+            tasksLock.unlock();
+        }
+    }
+
+    /**
+     * Submits the job into the lowest priority lane.
+     */
+    public void submit(Runnable job) {
+        submit(lanes.length - 1, job);
+    }
+
+    public void submit(int lane, Runnable job) {
+        Objects.requireNonNull(job, "job");
+        Objects.checkIndex(lane, lanes.length);
+        tasksLock.lock();
+        try {
+            lanes[lane].add(job);
+            size++;
+            tasksNotEmpty.signal();
+        } finally {
+            tasksLock.unlock();
+        }
+    }
+
+    public int getLanes() {
+        return lanes.length;
+    }
+
+    public int getRunQueueLength() {
+        tasksLock.lock();
+        try {
+            return size;
+        } finally {
+            tasksLock.unlock();
+        }
+    }
+
+    public int getRunQueueLength(int lane) {
+        Objects.checkIndex(lane, lanes.length);
+        tasksLock.lock();
+        try {
+            return lanes[lane].size();
+        } finally {
+            tasksLock.unlock();
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next task from the lanes using take()
+                // we then call the run() method on the job
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+    }
+}
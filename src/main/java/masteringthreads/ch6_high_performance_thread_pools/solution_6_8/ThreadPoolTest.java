@@ -0,0 +1,159 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_8;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.submit(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        });
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testThatRunnablesAreExecutedConcurrently() throws InterruptedException {
+        checkStandardThreadPoolFunctionality(new ThreadPool(10));
+    }
+
+    @Test
+    public void testWeightedFairDequeue() throws InterruptedException {
+        var pool = new ThreadPool(1, 4, 2, 1);
+        var blocker = blockWorker(pool);
+        var order = Collections.synchronizedList(new ArrayList<Integer>());
+        var latch = new CountDownLatch(3 * 20);
+        // fill the lowest lane first, so FIFO would run it first
+        for (int lane = pool.getLanes() - 1; lane >= 0; lane--) {
+            int l = lane;
+            for (int i = 0; i < 20; i++) {
+                pool.submit(lane, () -> {
+                    order.add(l);
+                    latch.countDown();
+                });
+            }
+        }
+        blocker.countDown();
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        pool.shutdown();
+        // every round of 7 tasks has 4 from lane 0, 2 from lane 1, 1 from lane 2
+        for (int round = 0; round < 5; round++) {
+            var counts = new int[3];
+            for (int lane : order.subList(round * 7, round * 7 + 7)) counts[lane]++;
+            assertArrayEquals("round " + round + " in " + order, new int[]{4, 2, 1}, counts);
+        }
+    }
+
+    @Test
+    public void testLowLaneIsNotStarved() throws InterruptedException {
+        var pool = new ThreadPool(1, 10, 1);
+        var blocker = blockWorker(pool);
+        var low = new CountDownLatch(1);
+        var highBeforeLow = new AtomicInteger(-1);
+        var high = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            pool.submit(0, high::incrementAndGet);
+        }
+        pool.submit(1, () -> {
+            highBeforeLow.set(high.get());
+            low.countDown();
+        });
+        blocker.countDown();
+        assertTrue(low.await(1, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertTrue("low lane ran after " + highBeforeLow + " high tasks",
+            highBeforeLow.get() <= 10);
+    }
+
+    @Test
+    public void testEmptyLanesDoNotDelayOthers() throws InterruptedException {
+        var pool = new ThreadPool(1, 1, 1, 1);
+        var latch = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            pool.submit(1, latch::countDown);
+        }
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(0, pool.getRunQueueLength());
+        pool.shutdown();
+    }
+
+    private CountDownLatch blockWorker(ThreadPool pool) throws InterruptedException {
+        var blocker = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+        pool.submit(0, () -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private void checkStandardThreadPoolFunctionality(ThreadPool pool) throws InterruptedException {
+        var latch = new CountDownLatch(19);
+        var time = System.currentTimeMillis();
+        for (int i = 0; i < 19; i++) {
+            pool.submit(i % pool.getLanes(), () -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(3, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        time = System.currentTimeMillis() - time;
+        pool.shutdown();
+        if (pool.getRunQueueLength() != 0) {
+            throw new AssertionError("Queue was not empty: "
+                + pool.getRunQueueLength());
+        }
+        assertTrue("Total time exceeded limits", time < 2400);
+        assertFalse("Faster than expected", time < 1900);
+    }
+
+    private Thread interrupted = null;
+
+    @Test
+    public void testForBackupBoolean() throws InterruptedException {
+        var latch = new CountDownLatch(8);
+        var pool = new ThreadPool(10);
+        for (int i = 0; i < 12; i++) {
+            pool.submit(() -> {
+                try {
+                    Thread.sleep(1000);
+                    latch.countDown();
+                } catch (InterruptedException e) {
+                    interrupted = Thread.currentThread();
+                }
+            });
+        }
+        boolean noTimeout = latch.await(2, TimeUnit.SECONDS);
+        assertTrue("timeout occurred - did you start your threads?", noTimeout);
+        pool.shutdown();
+        Thread.sleep(100);
+        assertTrue("Did you have a backup boolean?",
+            interrupted == null || !interrupted.isAlive());
+    }
+}
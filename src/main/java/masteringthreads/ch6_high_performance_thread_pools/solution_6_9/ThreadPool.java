@@ -0,0 +1,91 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_9;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// solution #13 - delayed and periodic tasks on a hierarchical timing wheel
+public class ThreadPool implements TaskPool {
+    private static final long DEFAULT_TICK_MILLIS = 1;
+
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final Collection<Worker> workers = new ConcurrentLinkedQueue<>();
+    private final TimingWheel timingWheel;
+    private volatile boolean running = true;
+
+    public ThreadPool(int poolSize) {
+        this(poolSize, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param tickDuration the resolution of the timer; scheduled tasks
+     *                     never run early, but may run up to one tick late
+     */
+    public ThreadPool(int poolSize, long tickDuration, TimeUnit unit) {
+        // straight onto the queue rather than this::submit, so that we do
+        // not hand out this before the constructor has finished
+        timingWheel = new TimingWheel(tickDuration, unit, tasks::add);
+        for (int i = 0; i < poolSize; i++) {
+            var worker = new Worker("worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    private Runnable take() throws InterruptedException {
+        return tasks.take();
+    }
+
+    public void submit(Runnable job) {
+        tasks.add(job);
+    }
+
+    /**
+     * Runs the job on one of our workers once the delay has passed.
+     */
+    public Timeout schedule(Runnable job, long delay, TimeUnit unit) {
+        return timingWheel.schedule(job, delay, 0, unit);
+    }
+
+    /**
+     * Runs the job on one of our workers after the initial delay and then
+     * every period, measured from the previous scheduled start. If a run
+     * takes longer than the period, the next one starts late, but runs
+     * never overlap.
+     */
+    public Timeout scheduleAtFixedRate(Runnable job, long initialDelay,
+                                       long period, TimeUnit unit) {
+        if (period <= 0) throw new IllegalArgumentException("period=" + period);
+        return timingWheel.schedule(job, initialDelay, period, unit);
+    }
+
+    public int getRunQueueLength() {
+        return tasks.size();
+    }
+
+    public void shutdown() {
+        running = false;
+        timingWheel.shutdown();
+        workers.forEach(Thread::interrupt);
+    }
+
+    private class Worker extends Thread {
+        public Worker(String name) {
+            super(name);
+        }
+
+        public void run() {
+            // we run in an infinite loop:
+            while (running) {
+                // remove the next task from the queue using take()
+                // we then call the run() method on the job
+                try {
+                    take().run();
+                } catch (InterruptedException consumeAndExit) {
+                    break;
+                }
+            }
+        }
+    }
+}
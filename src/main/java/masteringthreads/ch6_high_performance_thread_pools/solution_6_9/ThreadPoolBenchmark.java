@@ -0,0 +1,41 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_9;
+
+import masteringthreads.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// request deadlines that are almost always cancelled before they expire:
+// timing wheel vs the binary heap of ScheduledThreadPoolExecutor
+public class ThreadPoolBenchmark {
+    private static final int TIMEOUTS = 1_000_000;
+
+    public static void main(String... args) {
+        for (int run = 0; run < 5; run++) {
+            var pool = new ThreadPool(4);
+            var bm = new Benchmark();
+            bm.start();
+            var timeouts = new ArrayList<Timeout>(TIMEOUTS);
+            for (int i = 0; i < TIMEOUTS; i++) {
+                timeouts.add(pool.schedule(() -> {}, 30_000 + i % 1000, TimeUnit.MILLISECONDS));
+            }
+            timeouts.forEach(Timeout::cancel);
+            bm.stop();
+            System.out.println("TimingWheel: " + bm);
+            pool.shutdown();
+
+            var executor = new ScheduledThreadPoolExecutor(4);
+            executor.setRemoveOnCancelPolicy(true);
+            bm = new Benchmark();
+            bm.start();
+            var futures = new ArrayList<ScheduledFuture<?>>(TIMEOUTS);
+            for (int i = 0; i < TIMEOUTS; i++) {
+                futures.add(executor.schedule(() -> {}, 30_000 + i % 1000, TimeUnit.MILLISECONDS));
+            }
+            futures.forEach(f -> f.cancel(false));
+            bm.stop();
+            System.out.println("ScheduledThreadPoolExecutor: " + bm);
+            executor.shutdownNow();
+        }
+    }
+}
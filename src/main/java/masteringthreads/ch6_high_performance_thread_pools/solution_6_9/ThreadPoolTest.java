@@ -0,0 +1,126 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_9;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class ThreadPoolTest {
+    @Test
+    public void testTasksAreStopped() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var latch = new CountDownLatch(1);
+        pool.schedule(() -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } finally {
+                latch.countDown();
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+        Thread.sleep(1000);
+        pool.shutdown();
+        boolean noTimeout = latch.await(100, TimeUnit.MILLISECONDS);
+        assertTrue("timeout occurred - did not shutdown the threads in time?", noTimeout);
+    }
+
+    @Test
+    public void testScheduledTasksRunInOrderOnWorkers() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var order = Collections.synchronizedList(new ArrayList<Integer>());
+        var threads = ConcurrentHashMap.<String>newKeySet();
+        var latch = new CountDownLatch(5);
+        var start = System.nanoTime();
+        var lateness = new ConcurrentLinkedQueue<Long>();
+        // 5000ms goes onto a higher level and has to be cascaded down
+        int[] delays = {5000, 300, 20, 1500, 100};
+        for (int delay : delays) {
+            pool.schedule(() -> {
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                lateness.add(elapsed - delay);
+                order.add(delay);
+                threads.add(Thread.currentThread().getName());
+                latch.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(7, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(List.of(20, 100, 300, 1500, 5000), order);
+        assertEquals(Set.of("worker-0"), threads);
+        for (long late : lateness) {
+            assertTrue("ran early by " + -late + "ms", late >= 0);
+            assertTrue("ran late by " + late + "ms", late < 100);
+        }
+    }
+
+    @Test
+    public void testCancelledTaskDoesNotRun() throws InterruptedException {
+        var pool = new ThreadPool(1);
+        var ran = new AtomicBoolean();
+        var timeout = pool.schedule(() -> ran.set(true), 200, TimeUnit.MILLISECONDS);
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        var latch = new CountDownLatch(1);
+        var other = pool.schedule(latch::countDown, 300, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertFalse(ran.get());
+        assertTrue(other.isExpired());
+        assertFalse("already ran", other.cancel());
+    }
+
+    @Test
+    public void testFixedRate() throws InterruptedException {
+        var pool = new ThreadPool(2);
+        var count = new AtomicInteger();
+        var timeout = pool.scheduleAtFixedRate(count::incrementAndGet,
+            0, 50, TimeUnit.MILLISECONDS);
+        Thread.sleep(1025);
+        assertTrue(timeout.cancel());
+        int runs = count.get();
+        Thread.sleep(200);
+        pool.shutdown();
+        assertTrue("runs=" + runs, runs >= 19 && runs <= 22);
+        assertEquals("ran after cancel", runs, count.get());
+    }
+
+    @Test
+    public void testPeriodIsNotRoundedDownToTicks() throws InterruptedException {
+        // 30ms is a tick and a half, which must become two ticks, not one
+        var pool = new ThreadPool(2, 20, TimeUnit.MILLISECONDS);
+        var count = new AtomicInteger();
+        var timeout = pool.scheduleAtFixedRate(count::incrementAndGet,
+            0, 30, TimeUnit.MILLISECONDS);
+        Thread.sleep(1010);
+        assertTrue(timeout.cancel());
+        pool.shutdown();
+        int runs = count.get();
+        assertTrue("runs=" + runs, runs >= 20 && runs <= 30);
+    }
+
+    @Test
+    public void testManyTimeoutsAreCheapToAddAndCancel() throws InterruptedException {
+        var pool = new ThreadPool(2);
+        var ran = new LongAdder();
+        var timeouts = new ArrayList<Timeout>();
+        var time = System.nanoTime();
+        for (int i = 0; i < 200_000; i++) {
+            timeouts.add(pool.schedule(ran::increment, 1000 + i % 60_000, TimeUnit.MILLISECONDS));
+        }
+        for (var timeout : timeouts) {
+            assertTrue(timeout.cancel());
+        }
+        time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time);
+        assertTrue("took " + time + "ms", time < 2000);
+        var latch = new CountDownLatch(1);
+        pool.schedule(latch::countDown, 1100, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(0, ran.sum());
+    }
+}
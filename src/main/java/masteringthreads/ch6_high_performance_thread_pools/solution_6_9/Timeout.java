@@ -0,0 +1,70 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_9;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Handle for a task that was scheduled on the TimingWheel. Cancelling is
+ * O(1): we flip the state and the timer thread unlinks the entry from its
+ * bucket on its next tick.
+ */
+public final class Timeout implements Runnable {
+    static final int WAITING = 0, EXPIRED = 1, CANCELLED = 2;
+
+    private final TimingWheel wheel;
+    private final Runnable task;
+    private final long periodTicks;
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+    // the fields below are only touched by the timer thread, except for
+    // deadline, which is also written by the worker before rescheduling
+    long deadline;
+    Timeout prev, next;
+    TimingWheel.Bucket bucket;
+
+    Timeout(TimingWheel wheel, Runnable task, long deadline, long periodTicks) {
+        this.wheel = wheel;
+        this.task = task;
+        this.deadline = deadline;
+        this.periodTicks = periodTicks;
+    }
+
+    boolean expire() {
+        return state.compareAndSet(WAITING, EXPIRED);
+    }
+
+    // runs on a worker thread of the pool
+    public void run() {
+        task.run();
+        // a periodic task goes back onto the wheel, unless it was
+        // cancelled while it was running
+        if (periodTicks > 0 && state.compareAndSet(EXPIRED, WAITING)) {
+            deadline += periodTicks;
+            wheel.add(this);
+        }
+    }
+
+    /**
+     * @return true if this call stopped the task from running (again)
+     */
+    public boolean cancel() {
+        while (true) {
+            int s = state.get();
+            if (s == CANCELLED || (s == EXPIRED && periodTicks == 0)) return false;
+            if (state.compareAndSet(s, CANCELLED)) {
+                if (s == WAITING) wheel.cancelled(this);
+                return true;
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return state.get() == CANCELLED;
+    }
+
+    public boolean isExpired() {
+        return state.get() == EXPIRED;
+    }
+
+    boolean isWaiting() {
+        return state.get() == WAITING;
+    }
+}
@@ -0,0 +1,204 @@
+package masteringthreads.ch6_high_performance_thread_pools.solution_6_9;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+/**
+ * Hierarchical hashed timing wheel, as described by Varghese and Lauck
+ * and used in the Linux kernel. There are LEVELS wheels of 64 buckets,
+ * each level covering 64 times the range of the one below. A timeout is
+ * put into the lowest level that can hold it, and whenever a lower level
+ * wraps around, the matching bucket of the next level is cascaded down.
+ * Adding and cancelling are O(1), no matter how many timeouts are pending.
+ * <p>
+ * Only the timer thread touches the buckets. Other threads hand over new
+ * and cancelled timeouts through lock-free queues, and expired timeouts
+ * are passed to the dispatcher, which puts them onto the pool's workers.
+ */
+class TimingWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final Consumer<Runnable> dispatcher;
+    private final Bucket[][] buckets = new Bucket[LEVELS][SLOTS];
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean idle;
+    private volatile boolean running = true;
+    // only used by the timer thread
+    private long now;
+    private int count;
+
+    TimingWheel(long tickDuration, TimeUnit unit, Consumer<Runnable> dispatcher) {
+        this.tickNanos = unit.toNanos(tickDuration);
+        if (tickNanos <= 0) throw new IllegalArgumentException("tick too small");
+        this.dispatcher = dispatcher;
+        for (var level : buckets) {
+            Arrays.setAll(level, i -> new Bucket());
+        }
+        thread = new Thread(this::run, "timer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    Timeout schedule(Runnable task, long delay, long period, TimeUnit unit) {
+        Objects.requireNonNull(task, "task");
+        if (delay < 0) delay = 0;
+        // round up, so that we never run a task too early or too often
+        long deadline = (System.nanoTime() - startNanos + unit.toNanos(delay)
+            + tickNanos - 1) / tickNanos;
+        long periodTicks = period == 0 ? 0
+            : Math.max(1, (unit.toNanos(period) + tickNanos - 1) / tickNanos);
+        var timeout = new Timeout(this, task, deadline, periodTicks);
+        add(timeout);
+        return timeout;
+    }
+
+    void add(Timeout timeout) {
+        pending.add(timeout);
+        if (idle) LockSupport.unpark(thread);
+    }
+
+    void cancelled(Timeout timeout) {
+        cancelled.add(timeout);
+    }
+
+    void shutdown() {
+        running = false;
+        thread.interrupt();
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - startNanos) / tickNanos;
+    }
+
+    private void run() {
+        while (running) {
+            removeCancelled();
+            long target = currentTick();
+            // with an empty wheel there is nothing to expire on the way
+            if (count == 0) now = Math.max(now, target);
+            addPending();
+            while (now < target) {
+                now++;
+                tick();
+            }
+            if (count == 0) {
+                // nothing to do, so we sleep until somebody schedules a task
+                idle = true;
+                if (pending.isEmpty() && running) LockSupport.park(this);
+                idle = false;
+            } else {
+                long sleep = (now + 1) * tickNanos - (System.nanoTime() - startNanos);
+                if (sleep > 0) LockSupport.parkNanos(this, sleep);
+            }
+        }
+    }
+
+    private void tick() {
+        // cascade the higher levels whenever the level below wraps around
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if ((now & ((1L << shift) - 1)) != 0) break;
+            var bucket = buckets[level][(int) (now >>> shift) & SLOT_MASK];
+            for (var timeout = bucket.removeAll(); timeout != null; ) {
+                var next = timeout.next;
+                timeout.next = null;
+                count--;
+                insert(timeout);
+                timeout = next;
+            }
+        }
+        var bucket = buckets[0][(int) now & SLOT_MASK];
+        for (var timeout = bucket.removeAll(); timeout != null; ) {
+            var next = timeout.next;
+            timeout.next = null;
+            count--;
+            expire(timeout);
+            timeout = next;
+        }
+    }
+
+    private void addPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.isWaiting()) insert(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+                count--;
+            }
+        }
+    }
+
+    private void insert(Timeout timeout) {
+        long delta = timeout.deadline - now;
+        if (delta <= 0) {
+            expire(timeout);
+            return;
+        }
+        // timeouts beyond the range of the top level are parked in its
+        // furthest bucket and cascaded again when we get there
+        long deadline = now + Math.min(delta, MAX_DELTA);
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) level++;
+        buckets[level][(int) (deadline >>> (SLOT_BITS * level)) & SLOT_MASK].add(timeout);
+        count++;
+    }
+
+    private void expire(Timeout timeout) {
+        if (timeout.expire()) {
+            try {
+                dispatcher.accept(timeout);
+            } catch (RuntimeException e) {
+                // e.g. the pool refused the task, do not kill the timer thread
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+    }
+
+    // doubly linked list, so that cancelled timeouts can be unlinked in O(1)
+    static final class Bucket {
+        private Timeout head;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) head.prev = timeout;
+            head = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) timeout.prev.next = timeout.next;
+            else head = timeout.next;
+            if (timeout.next != null) timeout.next.prev = timeout.prev;
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        // detaches the whole list, which can still be walked through next
+        Timeout removeAll() {
+            var first = head;
+            head = null;
+            for (var t = first; t != null; t = t.next) {
+                t.bucket = null;
+                t.prev = null;
+            }
+            return first;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package masteringthreads.util;
+
+/**
+ * The shape that all our thread pools share, so that we can swap one
+ * implementation for another, for example in the JMH benchmarks.
+ */
+public interface TaskPool {
+    void submit(Runnable job);
+
+    int getRunQueueLength();
+
+    void shutdown();
+}
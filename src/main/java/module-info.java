@@ -1,4 +1,5 @@
 open module eu.javaspecialists.coursers.masteringthreads {
     requires junit;
     requires java.management;
+    requires jdk.jfr;
 }